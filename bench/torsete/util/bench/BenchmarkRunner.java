@@ -0,0 +1,23 @@
+package torsete.util.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the gc profiler, so the allocation rate and the bytes allocated per entry (gc.alloc.rate.norm)
+ * are reported together with the time per entry and the entries per second.
+ * <p>
+ * Usage: BenchmarkRunner [regular expression of benchmarks]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(args.length == 0 ? ".*Benchmark.*" : args[0])
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
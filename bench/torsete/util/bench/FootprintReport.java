@@ -0,0 +1,66 @@
+package torsete.util.bench;
+
+import torsete.util.entry.LinkedEntries;
+import torsete.util.entry.util.StringPool;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reports the heap retained by {@link LinkedEntries} per entry, with linked and with columnar storage,
+ * and with and without a {@link StringPool} for keys and values repeated over the entries.
+ * <p>
+ * Usage: FootprintReport [number of entries]. Default is 1000000. Run with a heap large enough for the entries, eg. -Xmx2g
+ */
+public class FootprintReport {
+
+    public static void main(String[] args) throws IOException {
+        int entries = args.length == 0 ? 1000000 : Integer.parseInt(args[0]);
+        Path folder = Files.createTempDirectory("footprint");
+        try {
+            File file = folder.resolve("entries").toFile();
+            Files.write(file.toPath(), SyntheticSources.flatProperties(entries).getBytes());
+            System.out.println(entries + " entries (each with a key and a value of about 10 characters)");
+            long linked = report("linked         ", file, false, null);
+            long columnar = report("columnar       ", file, true, null);
+            System.out.printf("saved           %8.1f bytes/entry%n", (double) (linked - columnar) / entries);
+
+            File repeatedFile = folder.resolve("repeated").toFile();
+            Files.write(repeatedFile.toPath(), SyntheticSources.repeatedProperties(entries).getBytes());
+            System.out.println(entries + " entries (1000 distinct keys and 100 distinct values)");
+            linked = report("linked         ", repeatedFile, false, null);
+            StringPool stringPool = new StringPool(1 << 12, 64);
+            long pooled = report("linked, pooled ", repeatedFile, false, stringPool);
+            System.out.printf("saved           %8.1f bytes/entry (pool hit rate %.3f, estimated %d bytes saved)%n",
+                    (double) (linked - pooled) / entries, stringPool.getHitRate(), stringPool.getSavedBytes());
+            report("columnar,pooled", repeatedFile, true, new StringPool(1 << 12, 64));
+        } finally {
+            SyntheticSources.deleteFolder(folder);
+        }
+    }
+
+    /**
+     * @return Heap retained by the entries
+     */
+    private static long report(String name, File file, boolean columnar, StringPool stringPool) throws IOException {
+        long before = usedHeap();
+        LinkedEntries<Object, Object> linkedEntries = new LinkedEntries<>()
+                .setColumnarStorage(columnar)
+                .setStringPool(stringPool)
+                .setSource(file)
+                .append();
+        long bytes = usedHeap() - before;
+        System.out.printf("%s %8.1f bytes/entry (%d entries)%n", name, (double) bytes / linkedEntries.size(), linkedEntries.size());
+        return bytes;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
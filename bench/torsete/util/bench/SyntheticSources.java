@@ -0,0 +1,126 @@
+package torsete.util.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates synthetic input for the benchmarks
+ */
+public class SyntheticSources {
+
+    /**
+     * key0=value0, key1=value1, ...
+     */
+    public static String flatProperties(int entries) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < entries; i++) {
+            sb.append("key").append(i).append('=').append("value").append(i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Keys and values repeated as in a set of similar configurations: key0=value0 ... key999=value99, key0=value0 ...
+     */
+    public static String repeatedProperties(int entries) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < entries; i++) {
+            sb.append("section.key").append(i % 1000).append('=').append("value").append(i % 100).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Keys in "dot notation" as expanded by {@link torsete.util.entry.util.DottedEntryKeyConsumer}:
+     * <pre>
+     * root0.section=v
+     * .name=v
+     * ..first=v
+     * ..last=v
+     * .value=v
+     * </pre>
+     */
+    public static String dottedProperties(int entries) {
+        String[] keys = {"root%d.section", ".name", "..first", "..last", ".value"};
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < entries; i++) {
+            sb.append(String.format(keys[i % keys.length], i / keys.length)).append('=').append("value").append(i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Entries continued over a number of lines by a trailing backslash
+     */
+    public static String continuedProperties(int entries, int linesPerEntry) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < entries; i++) {
+            sb.append("key").append(i).append("=part0");
+            for (int j = 1; j < linesPerEntry; j++) {
+                sb.append(" \\\n    part").append(j);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes files each including the next file at the middle of its entries
+     *
+     * @param depth Number of files
+     * @return The root file
+     */
+    public static File nestedIncludes(Path folder, int depth, int entriesPerFile) throws IOException {
+        for (int level = 0; level < depth; level++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < entriesPerFile; i++) {
+                if (i == entriesPerFile / 2 && level < depth - 1) {
+                    sb.append("include=level").append(level + 1).append('\n');
+                }
+                sb.append("key").append(level).append('_').append(i).append("=value").append(i).append('\n');
+            }
+            Files.write(folder.resolve("level" + level), sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return folder.resolve("level0").toFile();
+    }
+
+    /**
+     * vparser items of two lines with quoted strings
+     */
+    public static String items(int items) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < items; i++) {
+            sb.append("item").append(i % 7).append(" id=n").append(i)
+                    .append(", tekst=\"Dette er \"\"en\"\" tekst nr ").append(i).append("\"\n")
+                    .append("  antal=").append(i % 100).append(" enhed=stk\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * vparser items continued over a number of lines
+     */
+    public static String continuedItems(int items, int linesPerItem) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < items; i++) {
+            sb.append("item").append(i % 7).append(" id=n").append(i).append('\n');
+            for (int j = 1; j < linesPerItem; j++) {
+                sb.append("  v").append(j).append("=").append(j).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    public static void deleteFolder(Path folder) throws IOException {
+        File[] files = folder.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.delete(folder);
+    }
+}
@@ -0,0 +1,45 @@
+package torsete.util.entry;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import torsete.util.bench.SyntheticSources;
+import torsete.util.entry.util.EntryIterator;
+import torsete.util.entry.util.ReaderEntryIterator;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading of entries continued over many lines by {@link ReaderEntryIterator}. The scores are per line
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ContinuationLinesBenchmark.LINES)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContinuationLinesBenchmark {
+    static final int LINES = 10000;
+
+    @Param({"1", "100", "10000"})
+    private int linesPerEntry;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        content = SyntheticSources.continuedProperties(LINES / linesPerEntry, linesPerEntry);
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) {
+        EntryIterator<String, String> iterator = new ReaderEntryIterator<String, String>()
+                .setReader(new StringReader(content))
+                .open();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+        iterator.close();
+    }
+}
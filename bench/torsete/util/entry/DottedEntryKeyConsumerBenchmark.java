@@ -0,0 +1,53 @@
+package torsete.util.entry;
+
+import org.openjdk.jmh.annotations.*;
+import torsete.util.bench.SyntheticSources;
+import torsete.util.entry.util.DottedEntryKeyConsumer;
+import torsete.util.entry.util.EntryIterator;
+import torsete.util.entry.util.ReaderEntryIterator;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures expansion of keys by {@link DottedEntryKeyConsumer}. The scores are per entry
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(DottedEntryKeyConsumerBenchmark.ENTRIES)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DottedEntryKeyConsumerBenchmark {
+    static final int ENTRIES = 10000;
+
+    private List<LinkedEntry<String, String>> entries;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        EntryIterator<String, String> iterator = new ReaderEntryIterator<String, String>()
+                .setReader(new StringReader(SyntheticSources.dottedProperties(ENTRIES)))
+                .open();
+        entries = new ArrayList<>();
+        iterator.forEachRemaining(entries::add);
+        keys = new String[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            keys[i] = entries.get(i).getKey();
+        }
+    }
+
+    @Benchmark
+    public DottedEntryKeyConsumer<String, String> accept() {
+        DottedEntryKeyConsumer<String, String> consumer = new DottedEntryKeyConsumer<>();
+        for (int i = 0; i < entries.size(); i++) {
+            LinkedEntry<String, String> entry = entries.get(i);
+            entry.replaceKey(keys[i]);
+            consumer.accept(entry);
+        }
+        return consumer;
+    }
+}
@@ -0,0 +1,82 @@
+package torsete.util.entry;
+
+import org.openjdk.jmh.annotations.*;
+import torsete.util.entry.util.EntryBatchConsumer;
+import torsete.util.entry.util.EntryIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures the dispatch of entries to several entry consumers, one entry at a time and in batches.
+ * The scores are per entry
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(EntryConsumerBenchmark.ENTRIES)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntryConsumerBenchmark {
+    static final int ENTRIES = 10000;
+
+    private List<LinkedEntry<String, String>> entries;
+    private int[] counts;
+
+    @Setup
+    public void setUp() {
+        entries = new ArrayList<>(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++) {
+            entries.add(new LinkedEntry<>("key" + i, "value" + i));
+        }
+        counts = new int[3];
+    }
+
+    @Benchmark
+    public int[] single() {
+        EntryIterator<String, String> iterator = newIterator()
+                .addEntryConsumer(entry -> counts[0] += entry.getKey().length())
+                .addEntryConsumer(entry -> counts[1] += entry.getValue().length())
+                .addEntryConsumer(entry -> counts[2]++);
+        iterator.forEachRemaining(entry -> {
+        });
+        return counts;
+    }
+
+    @Benchmark
+    public int[] batch() {
+        EntryIterator<String, String> iterator = newIterator()
+                .addEntryConsumer(batchConsumer(entries -> {
+                    for (int i = 0; i < entries.size(); i++) {
+                        counts[0] += entries.get(i).getKey().length();
+                    }
+                }))
+                .addEntryConsumer(batchConsumer(entries -> {
+                    for (int i = 0; i < entries.size(); i++) {
+                        counts[1] += entries.get(i).getValue().length();
+                    }
+                }))
+                .addEntryConsumer(batchConsumer(entries -> counts[2] += entries.size()));
+        iterator.forEachRemaining(entry -> {
+        });
+        return counts;
+    }
+
+    private EntryBatchConsumer<String, String> batchConsumer(Consumer<List<LinkedEntry<String, String>>> consumer) {
+        return consumer::accept;
+    }
+
+    private EntryIterator<String, String> newIterator() {
+        return new EntryIterator<String, String>() {
+            private int i;
+
+            @Override
+            protected LinkedEntry<String, String> readEntry() {
+                return i < entries.size() ? entries.get(i++) : null;
+            }
+        }.open();
+    }
+}
@@ -0,0 +1,43 @@
+package torsete.util.entry;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link LinkedEntries#append(Object, Object)}.
+ * <p>
+ * Run with the gc profiler (-prof gc) to get the bytes allocated per entry (gc.alloc.rate.norm)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(LinkedEntriesAppendBenchmark.ENTRIES)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkedEntriesAppendBenchmark {
+    static final int ENTRIES = 10000;
+
+    private String[] keys;
+    private String[] values;
+
+    @Setup
+    public void setUp() {
+        keys = new String[ENTRIES];
+        values = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = "key" + i;
+            values[i] = "value" + i;
+        }
+    }
+
+    @Benchmark
+    public LinkedEntries<String, String> append() {
+        LinkedEntries<String, String> linkedEntries = new LinkedEntries<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            linkedEntries.append(keys[i], values[i]);
+        }
+        return linkedEntries;
+    }
+}
@@ -0,0 +1,84 @@
+package torsete.util.entry;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import torsete.util.bench.SyntheticSources;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading and accessing {@link LinkedEntries}. The scores are per entry
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(LinkedEntriesBenchmark.ENTRIES)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkedEntriesBenchmark {
+    static final int ENTRIES = 10000;
+    static final int DEPTH = 20;
+
+    private Path folder;
+    private File flatFile;
+    private File nestedFile;
+    private Path snapshot;
+    private LinkedEntries<Object, Object> loadedEntries;
+
+    @Setup
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("linkedentries");
+        flatFile = folder.resolve("flat").toFile();
+        Files.write(flatFile.toPath(), SyntheticSources.flatProperties(ENTRIES).getBytes());
+        nestedFile = SyntheticSources.nestedIncludes(folder, DEPTH, ENTRIES / DEPTH);
+        loadedEntries = newLinkedEntries().setSource(flatFile).append();
+        snapshot = folder.resolve("snapshot");
+        newLinkedEntries().setSource(nestedFile).append().writeSnapshot(snapshot);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SyntheticSources.deleteFolder(folder);
+    }
+
+    @Benchmark
+    public LinkedEntries<Object, Object> loadFlat() throws IOException {
+        return newLinkedEntries().setSource(flatFile).append();
+    }
+
+    @Benchmark
+    public LinkedEntries<Object, Object> loadNestedIncludes() throws IOException {
+        return newLinkedEntries().setSource(nestedFile).append();
+    }
+
+    @Benchmark
+    public LinkedEntries<Object, Object> loadNestedSnapshot() throws IOException {
+        LinkedEntries<Object, Object> linkedEntries = newLinkedEntries().setSource(nestedFile.toPath(), StandardCharsets.UTF_8);
+        if (!linkedEntries.readSnapshot(snapshot)) {
+            throw new IllegalStateException("Invalid snapshot");
+        }
+        return linkedEntries;
+    }
+
+    @Benchmark
+    public void stream(Blackhole blackhole) {
+        loadedEntries.stream().forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public HashMap<Object, List<Object>> map() {
+        return loadedEntries.map();
+    }
+
+    private LinkedEntries<Object, Object> newLinkedEntries() {
+        return new LinkedEntries<>().setIncludePredicate(entry -> entry.getKey().equals("include"));
+    }
+}
@@ -0,0 +1,88 @@
+package torsete.util.entry;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import torsete.util.bench.SyntheticSources;
+import torsete.util.entry.util.EntryIterator;
+import torsete.util.entry.util.InputStreamEntryIterator;
+import torsete.util.entry.util.ReaderEntryIterator;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading of entries by {@link ReaderEntryIterator}, and by {@link InputStreamEntryIterator} compared to
+ * reading the bytes by an {@link InputStreamReader}. The scores are per entry
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ReaderEntryIteratorBenchmark.ENTRIES)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderEntryIteratorBenchmark {
+    static final int ENTRIES = 10000;
+
+    @Param({"flat", "dotted", "continued"})
+    private String shape;
+
+    private String content;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        switch (shape) {
+            case "dotted":
+                content = SyntheticSources.dottedProperties(ENTRIES);
+                break;
+            case "continued":
+                content = SyntheticSources.continuedProperties(ENTRIES, 10);
+                break;
+            default:
+                content = SyntheticSources.flatProperties(ENTRIES);
+                break;
+        }
+        bytes = content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) {
+        EntryIterator<String, String> iterator = new ReaderEntryIterator<String, String>()
+                .setReader(new StringReader(content))
+                .open();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+        iterator.close();
+    }
+
+    @Benchmark
+    public void readInputStreamReader(Blackhole blackhole) {
+        read(new ReaderEntryIterator<String, String>()
+                .setReader(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)), blackhole);
+    }
+
+    @Benchmark
+    public void readInputStream(Blackhole blackhole) {
+        read(new InputStreamEntryIterator<String, String>()
+                .setInputStream(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8), blackhole);
+    }
+
+    @Benchmark
+    public void readInputStreamLatin1(Blackhole blackhole) {
+        read(new InputStreamEntryIterator<String, String>()
+                .setInputStream(new ByteArrayInputStream(bytes), StandardCharsets.ISO_8859_1), blackhole);
+    }
+
+    private void read(EntryIterator<String, String> iterator, Blackhole blackhole) {
+        iterator.open();
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+        iterator.close();
+    }
+}
@@ -0,0 +1,53 @@
+package torsete.util.entry;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures finding the entries under a dotted key by {@link LinkedEntries#getSubtree(String)}
+ * compared to filtering {@link LinkedEntries#stream()}.
+ * <p>
+ * The keys are "gN.sM.kL" of 100 groups of 10 subgroups of 100 keys, so 100 of the 100000 entries are under a subgroup
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubtreeBenchmark {
+    private LinkedEntries<String, String> linkedEntries;
+
+    @Setup
+    public void setUp() {
+        linkedEntries = new LinkedEntries<>();
+        for (int g = 0; g < 100; g++) {
+            for (int s = 0; s < 10; s++) {
+                for (int k = 0; k < 100; k++) {
+                    linkedEntries.append("g" + g + ".s" + s + ".k" + k, "v" + k);
+                }
+            }
+        }
+        linkedEntries.getSubtree("g0");
+    }
+
+    @Benchmark
+    public List<LinkedEntry<String, String>> filter() {
+        return linkedEntries.stream()
+                .filter(entry -> entry.getKey().equals("g42.s3") || entry.getKey().startsWith("g42.s3."))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LinkedEntry<String, String>> subtree() {
+        return linkedEntries.getSubtree("g42.s3");
+    }
+
+    @Benchmark
+    public List<LinkedEntry<String, String>> prefix() {
+        return linkedEntries.getByPrefix("g42.s");
+    }
+}
@@ -0,0 +1,70 @@
+package torsete.util.stream;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures streaming from suppliers, one element at a time and in bulk. The scores are per element
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(BaseSpliteratorBenchmark.ELEMENTS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaseSpliteratorBenchmark {
+    static final int ELEMENTS = 100000;
+    private static final int BATCH = 256;
+
+    private Integer[] elements;
+
+    @Setup
+    public void setUp() {
+        elements = new Integer[ELEMENTS];
+        for (int i = 0; i < ELEMENTS; i++) {
+            elements[i] = i;
+        }
+    }
+
+    @Benchmark
+    public long next() {
+        int[] i = new int[1];
+        return new BaseSpliterator<Integer>()
+                .setNextSupplier(() -> elements[i[0]++])
+                .setIsLastSupplier(() -> i[0] == ELEMENTS)
+                .stream()
+                .mapToLong(Integer::longValue)
+                .sum();
+    }
+
+    @Benchmark
+    public long batch() {
+        int[] i = new int[1];
+        return new BaseSpliterator<Integer>()
+                .setBatchSupplier(() -> {
+                    if (i[0] == ELEMENTS) {
+                        return null;
+                    }
+                    Integer[] batch = new Integer[Math.min(BATCH, ELEMENTS - i[0])];
+                    System.arraycopy(elements, i[0], batch, 0, batch.length);
+                    i[0] += batch.length;
+                    return batch;
+                })
+                .stream()
+                .mapToLong(Integer::longValue)
+                .sum();
+    }
+
+    @Benchmark
+    public long parallel() {
+        int[] i = new int[1];
+        return new BaseSpliterator<Integer>()
+                .setNextSupplier(() -> elements[i[0]++])
+                .setIsLastSupplier(() -> i[0] == ELEMENTS)
+                .parallelStream()
+                .mapToLong(Integer::longValue)
+                .sum();
+    }
+}
@@ -0,0 +1,41 @@
+package vparser;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import torsete.util.bench.SyntheticSources;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of items continued over many lines by {@link ItemLinesParser}. The scores are per line
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ItemContinuationLinesBenchmark.LINES)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemContinuationLinesBenchmark {
+    static final int LINES = 10000;
+
+    @Param({"1", "100", "10000"})
+    private int linesPerItem;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        content = SyntheticSources.continuedItems(LINES / linesPerItem, linesPerItem);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        ItemLinesParser itemLinesParser = new ItemLinesParser(new StringReader(content));
+        itemLinesParser.open();
+        while (itemLinesParser.hasNext()) {
+            blackhole.consume(itemLinesParser.nextView().getVariableCount());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package vparser;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import torsete.util.bench.SyntheticSources;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of items by {@link ItemLinesParser}. The scores are per item
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ItemLinesParserBenchmark.ITEMS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemLinesParserBenchmark {
+    static final int ITEMS = 10000;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        content = SyntheticSources.items(ITEMS);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        new ItemLinesParser(new StringReader(content)).stream().forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void parseParallel(Blackhole blackhole) {
+        new ItemLinesParser(new StringReader(content)).parallelStream().forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void parseViews(Blackhole blackhole) {
+        ItemLinesParser itemLinesParser = new ItemLinesParser(new StringReader(content));
+        itemLinesParser.open();
+        while (itemLinesParser.hasNext()) {
+            ItemView itemView = itemLinesParser.nextView();
+            blackhole.consume(itemView.getValue("tekst"));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package torsete.util.entry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Entries stored as columns: Keys, values, line numbers and source ids are held by parallel arrays.
+ * <p>
+ * An entry costs about 16 bytes plus its key and value, where a linked {@link LinkedEntry} costs about 48 bytes.
+ * The entries are accessed through {@link LinkedEntry} views, which are created when they are requested.
+ * A view holds no data but its position, so a change by a view (eg. {@link LinkedEntry#replaceKey(Object)}) is a change of the columns.
+ */
+class EntryColumns<K, V> {
+    /**
+     * Line number of an entry without a line number
+     */
+    private static final int NO_LINENUMBER = Integer.MIN_VALUE;
+    /**
+     * Source id of an entry without a source
+     */
+    private static final int NO_SOURCE = -1;
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] lineNumbers;
+    private int[] sourceIds;
+    private int size;
+
+    /**
+     * The sources by source id
+     */
+    private List<V> sources;
+    private Map<V, Integer> sourceIdsBySource;
+    /**
+     * Source id of the latest source. Entries from the same source usually come in a row
+     */
+    private int latestSourceId;
+
+    EntryColumns() {
+        keys = new Object[16];
+        values = new Object[16];
+        lineNumbers = new int[16];
+        sourceIds = new int[16];
+        sources = new ArrayList<>();
+        sourceIdsBySource = new HashMap<>();
+        latestSourceId = NO_SOURCE;
+    }
+
+    private EntryColumns(Object[] keys, Object[] values, int[] lineNumbers, int[] sourceIds, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.lineNumbers = lineNumbers;
+        this.sourceIds = sourceIds;
+        this.size = size;
+        sourceIdsBySource = new HashMap<>();
+        latestSourceId = NO_SOURCE;
+    }
+
+    /**
+     * @return Columns of the entries added until now. The arrays are shared, as entries added hereafter are
+     * stored beyond the size of the copy, or in new arrays
+     */
+    EntryColumns<K, V> freeze() {
+        EntryColumns<K, V> frozen = new EntryColumns<>(keys, values, lineNumbers, sourceIds, size);
+        frozen.sources = new ArrayList<>(sources);
+        return frozen;
+    }
+
+    /**
+     * Copies the entry to the end of the columns
+     *
+     * @return A view of the copy
+     */
+    LinkedEntry<K, V> add(LinkedEntry<K, V> entry) {
+        if (size == keys.length) {
+            int capacity = size + (size >> 1);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+            lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+            sourceIds = Arrays.copyOf(sourceIds, capacity);
+        }
+        keys[size] = entry.getKey();
+        values[size] = entry.getValue();
+        setLineNumber(size, entry.getLineNumber());
+        setSource(size, entry.getSource());
+        return entry(size++);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return A view of the entry at the position
+     */
+    LinkedEntry<K, V> entry(int i) {
+        return new ColumnEntry<>(this, i);
+    }
+
+    /**
+     * @param parallel True if the stream should be parallel
+     * @return Views of the entries
+     */
+    Stream<LinkedEntry<K, V>> stream(boolean parallel) {
+        IntStream positions = IntStream.range(0, size);
+        return (parallel ? positions.parallel() : positions).mapToObj(this::entry);
+    }
+
+    private Integer getLineNumber(int i) {
+        return lineNumbers[i] == NO_LINENUMBER ? null : lineNumbers[i];
+    }
+
+    private void setLineNumber(int i, Integer lineNumber) {
+        lineNumbers[i] = lineNumber == null ? NO_LINENUMBER : lineNumber;
+    }
+
+    private V getSource(int i) {
+        return sourceIds[i] == NO_SOURCE ? null : sources.get(sourceIds[i]);
+    }
+
+    private void setSource(int i, V source) {
+        if (source == null) {
+            sourceIds[i] = NO_SOURCE;
+            return;
+        }
+        if (latestSourceId == NO_SOURCE || !Objects.equals(sources.get(latestSourceId), source)) {
+            Integer sourceId = sourceIdsBySource.get(source);
+            if (sourceId == null) {
+                sourceId = sources.size();
+                sources.add(source);
+                sourceIdsBySource.put(source, sourceId);
+            }
+            latestSourceId = sourceId;
+        }
+        sourceIds[i] = latestSourceId;
+    }
+
+    /**
+     * View of an entry of the columns
+     */
+    private static class ColumnEntry<K, V> extends LinkedEntry<K, V> {
+        private EntryColumns<K, V> columns;
+        private int i;
+
+        ColumnEntry(EntryColumns<K, V> columns, int i) {
+            super(null, null);
+            this.columns = columns;
+            this.i = i;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked") // The keys array only holds keys of type K, see add() and replaceKey()
+        public K getKey() {
+            return (K) columns.keys[i];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked") // The values array only holds values of type V, see add() and replaceValue()
+        public V getValue() {
+            return (V) columns.values[i];
+        }
+
+        @Override
+        public LinkedEntry<K, V> getSuccessor() {
+            return i + 1 < columns.size ? columns.entry(i + 1) : null;
+        }
+
+        /**
+         * @throws UnsupportedOperationException The successor is given by the position
+         */
+        @Override
+        public void setSuccessor(LinkedEntry<K, V> successor) {
+            throw new UnsupportedOperationException("The successor of a stored entry is given by its position");
+        }
+
+        @Override
+        public void setEntry(Map.Entry<K, V> entry) {
+            columns.keys[i] = entry.getKey();
+            columns.values[i] = entry.getValue();
+        }
+
+        @Override
+        public void replaceKey(K newKey) {
+            columns.keys[i] = newKey;
+        }
+
+        @Override
+        void replaceValue(V newValue) {
+            columns.values[i] = newValue;
+        }
+
+        @Override
+        public Integer getLineNumber() {
+            return columns.getLineNumber(i);
+        }
+
+        @Override
+        public LinkedEntry<K, V> setLineNumber(Integer lineNumber) {
+            columns.setLineNumber(i, lineNumber);
+            return this;
+        }
+
+        @Override
+        public V getSource() {
+            return columns.getSource(i);
+        }
+
+        @Override
+        public LinkedEntry<K, V> setSource(V source) {
+            columns.setSource(i, source);
+            return this;
+        }
+    }
+}
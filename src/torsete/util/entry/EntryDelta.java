@@ -0,0 +1,98 @@
+package torsete.util.entry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The entries added, removed and changed by a reload of {@link LinkedEntries}.
+ * <p>
+ * The entries of a reloaded source are matched by key: The n'th entry with a key before the reload is matched with the n'th
+ * entry with the key after the reload. A matched entry is changed if its value differs. An unmatched entry is added or removed.
+ */
+public class EntryDelta<K, V> {
+    private List<LinkedEntry<K, V>> added;
+    private List<LinkedEntry<K, V>> removed;
+    private List<LinkedEntry<K, V>> changed;
+    private List<LinkedEntry<K, V>> replaced;
+
+    EntryDelta() {
+        added = new ArrayList<>();
+        removed = new ArrayList<>();
+        changed = new ArrayList<>();
+        replaced = new ArrayList<>();
+    }
+
+    /**
+     * Adds the difference between the entries of a source before and after a reload
+     */
+    void add(List<LinkedEntry<K, V>> oldEntries, List<LinkedEntry<K, V>> newEntries) {
+        Map<K, List<LinkedEntry<K, V>>> oldEntriesByKey = byKey(oldEntries);
+        Map<K, List<LinkedEntry<K, V>>> newEntriesByKey = byKey(newEntries);
+        newEntriesByKey.forEach((key, newEntriesWithKey) -> {
+            List<LinkedEntry<K, V>> oldEntriesWithKey = oldEntriesByKey.getOrDefault(key, Collections.emptyList());
+            for (int i = 0; i < newEntriesWithKey.size(); i++) {
+                LinkedEntry<K, V> newEntry = newEntriesWithKey.get(i);
+                if (i >= oldEntriesWithKey.size()) {
+                    added.add(newEntry);
+                } else if (!Objects.equals(oldEntriesWithKey.get(i).getValue(), newEntry.getValue())) {
+                    changed.add(newEntry);
+                    replaced.add(oldEntriesWithKey.get(i));
+                }
+            }
+        });
+        oldEntriesByKey.forEach((key, oldEntriesWithKey) -> {
+            int newCount = newEntriesByKey.getOrDefault(key, Collections.emptyList()).size();
+            removed.addAll(oldEntriesWithKey.subList(Math.min(newCount, oldEntriesWithKey.size()), oldEntriesWithKey.size()));
+        });
+    }
+
+    /**
+     * @return The entries which are not matched by an entry before the reload
+     */
+    public List<LinkedEntry<K, V>> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return The entries before the reload, which are not matched by an entry after the reload
+     */
+    public List<LinkedEntry<K, V>> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return The entries with a changed value
+     */
+    public List<LinkedEntry<K, V>> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return The entries before the reload replaced by the changed entries. The n'th entry is replaced by the n'th changed entry
+     */
+    public List<LinkedEntry<K, V>> getReplaced() {
+        return replaced;
+    }
+
+    /**
+     * @return True if no entry is added, removed or changed
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "added=" + added + " removed=" + removed + " changed=" + changed;
+    }
+
+    private Map<K, List<LinkedEntry<K, V>>> byKey(List<LinkedEntry<K, V>> entries) {
+        Map<K, List<LinkedEntry<K, V>>> entriesByKey = new LinkedHashMap<>();
+        entries.forEach(entry -> entriesByKey.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry));
+        return entriesByKey;
+    }
+}
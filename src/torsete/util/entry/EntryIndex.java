@@ -0,0 +1,54 @@
+package torsete.util.entry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Entries by key. The entries of a key are kept in the order they are added.
+ * <p>
+ * A key with one entry is held by a singleton list. A list is only allocated for duplicated keys.
+ */
+class EntryIndex<K, V> {
+    private HashMap<K, List<LinkedEntry<K, V>>> entries;
+
+    EntryIndex() {
+        entries = new HashMap<>();
+    }
+
+    void add(LinkedEntry<K, V> entry) {
+        K key = entry.getKey();
+        List<LinkedEntry<K, V>> keyEntries = entries.get(key);
+        if (keyEntries == null) {
+            entries.put(key, Collections.singletonList(entry));
+        } else if (keyEntries.size() == 1) {
+            List<LinkedEntry<K, V>> duplicates = new ArrayList<>(4);
+            duplicates.add(keyEntries.get(0));
+            duplicates.add(entry);
+            entries.put(key, duplicates);
+        } else {
+            keyEntries.add(entry);
+        }
+    }
+
+    /**
+     * @return Null if the key is not present
+     */
+    LinkedEntry<K, V> getLast(K key) {
+        List<LinkedEntry<K, V>> keyEntries = entries.get(key);
+        return keyEntries == null ? null : keyEntries.get(keyEntries.size() - 1);
+    }
+
+    /**
+     * @return Never null
+     */
+    List<LinkedEntry<K, V>> getAll(K key) {
+        List<LinkedEntry<K, V>> keyEntries = entries.get(key);
+        return keyEntries == null ? Collections.emptyList() : Collections.unmodifiableList(keyEntries);
+    }
+
+    boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+}
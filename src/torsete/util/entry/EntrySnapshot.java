@@ -0,0 +1,195 @@
+package torsete.util.entry;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of linked entries. A snapshot is read without parsing the sources.
+ * <p>
+ * The format is:
+ * <ul>
+ * <li>Magic number and version</li>
+ * <li>String table: Each distinct key, value and source once, as UTF-8</li>
+ * <li>Entries in order: Key, value and source as indices into the string table (-1 for null), and line number</li>
+ * <li>Source tree: The sources with the length and last modified time of their files, and the number of entries of each run
+ * (see {@link SourceTree})</li>
+ * </ul>
+ * The numbers are big-endian. Keys, values and sources must be strings.
+ */
+class EntrySnapshot<K, V> {
+    private static final int MAGIC = 0x4C45534E;
+    /**
+     * Is changed when the format is changed. A snapshot of another version is not read
+     */
+    static final int VERSION = 1;
+    private static final int NO_LINENUMBER = Integer.MIN_VALUE;
+
+    private List<LinkedEntry<K, V>> entries;
+    private SourceTree<K, V> sourceTree;
+
+    private EntrySnapshot(List<LinkedEntry<K, V>> entries, SourceTree<K, V> sourceTree) {
+        this.entries = entries;
+        this.sourceTree = sourceTree;
+    }
+
+    /**
+     * @return The linked entries in order
+     */
+    List<LinkedEntry<K, V>> getEntries() {
+        return entries;
+    }
+
+    SourceTree<K, V> getSourceTree() {
+        return sourceTree;
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, which then replaces the file
+     *
+     * @param entries The entries of the runs of the source tree in order
+     * @throws IllegalArgumentException A key, a value or a source is not a string
+     */
+    static <K, V> void write(Path path, Iterable<LinkedEntry<K, V>> entries, SourceTree<K, V> sourceTree) throws IOException {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<LinkedEntry<K, V>> entryList = new ArrayList<>();
+        for (LinkedEntry<K, V> entry : entries) {
+            stringId(entry.getKey(), strings, stringIds);
+            stringId(entry.getValue(), strings, stringIds);
+            stringId(entry.getSource(), strings, stringIds);
+            entryList.add(entry);
+        }
+        ByteArrayOutputStream treeBytes = new ByteArrayOutputStream();
+        sourceTree.write(new DataOutputStream(treeBytes), source -> stringId(source, strings, stringIds));
+
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(entryList.size());
+            for (LinkedEntry<K, V> entry : entryList) {
+                out.writeInt(stringId(entry.getKey(), strings, stringIds));
+                out.writeInt(stringId(entry.getValue(), strings, stringIds));
+                out.writeInt(stringId(entry.getSource(), strings, stringIds));
+                Integer lineNumber = entry.getLineNumber();
+                out.writeInt(lineNumber == null ? NO_LINENUMBER : lineNumber);
+            }
+            treeBytes.writeTo(out);
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the snapshot by one sequential read. The strings are decoded from the bytes read.
+     * The counts and lengths are checked against the bytes left before anything is allocated
+     *
+     * @return Null if the file is missing, or if it is not a snapshot of this version
+     * @throws IOException The snapshot cannot be read, or it is truncated or corrupt
+     */
+    static <K, V> EntrySnapshot<K, V> read(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            if (bytes.length < 8 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return null;
+            }
+            return read(in, bytes);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(path + " is truncated", e);
+        } catch (IOException e) {
+            throw new IOException(path + " is corrupt: " + e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> EntrySnapshot<K, V> read(ByteBuffer in, byte[] bytes) throws IOException {
+        String[] strings = new String[count(in, 4, "strings")];
+        for (int i = 0; i < strings.length; i++) {
+            int length = count(in, 1, "bytes of a string");
+            strings[i] = new String(bytes, in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        }
+        int entryCount = count(in, 16, "entries");
+        List<LinkedEntry<K, V>> entries = new ArrayList<>(entryCount);
+        LinkedEntry<K, V> previous = null;
+        for (int i = 0; i < entryCount; i++) {
+            LinkedEntry<K, V> entry = new LinkedEntry<>((K) string(strings, in.getInt()), (V) string(strings, in.getInt()));
+            entry.setSource((V) string(strings, in.getInt()));
+            int lineNumber = in.getInt();
+            entry.setLineNumber(lineNumber == NO_LINENUMBER ? null : lineNumber);
+            if (previous != null) {
+                previous.setSuccessor(entry);
+            }
+            entries.add(entry);
+            previous = entry;
+        }
+        Iterator<LinkedEntry<K, V>> iterator = entries.iterator();
+        SourceTree<K, V> sourceTree = SourceTree.read(in, id -> id >= 0 && id < strings.length ? (V) strings[id] : null, iterator);
+        if (iterator.hasNext()) {
+            throw new IOException("The entries are not covered by the sources");
+        }
+        return new EntrySnapshot<>(entries, sourceTree);
+    }
+
+    /**
+     * Reads a count of items
+     *
+     * @param size The least number of bytes of an item
+     * @throws IOException The count is negative, or there are not bytes left for the items
+     */
+    private static int count(ByteBuffer in, int size, String items) throws IOException {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / size) {
+            throw new IOException("Invalid number of " + items + " " + count);
+        }
+        return count;
+    }
+
+    private static String string(String[] strings, int id) throws IOException {
+        if (id < -1 || id >= strings.length) {
+            throw new IOException("Unknown string " + id);
+        }
+        return id == -1 ? null : strings[id];
+    }
+
+    /**
+     * @return The index of the string in the string table. -1 if the string is null
+     */
+    private static int stringId(Object object, List<String> strings, Map<String, Integer> stringIds) {
+        if (object == null) {
+            return -1;
+        }
+        if (!(object instanceof String)) {
+            throw new IllegalArgumentException("Only strings are written to a snapshot: " + object.getClass().getName());
+        }
+        Integer id = stringIds.get(object);
+        if (id == null) {
+            id = strings.size();
+            strings.add((String) object);
+            stringIds.put((String) object, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,179 @@
+package torsete.util.entry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Entries by the segments of their dotted keys, eg. the key "aaa.bbb.ccc" has the segments "aaa", "bbb" and "ccc"
+ * (see {@link torsete.util.entry.util.DottedEntryKeyConsumer}).
+ * <p>
+ * A node of the trie holds the entries of its key and of the keys under it in the order they are added.
+ * So the entries under a key are found in time proportional to the depth of the key, at the cost of a reference per entry and segment.
+ * The entries of the keys starting with a part of a segment are merged from the nodes of the matching segments by the order they are added.
+ */
+class EntryTrie<K, V> {
+    private static final char SEPARATOR = '.';
+
+    private Node<K, V> root;
+    /**
+     * Number of added entries. The ordinal of the next entry
+     */
+    private long count;
+
+    EntryTrie() {
+        root = new Node<>();
+    }
+
+    void add(LinkedEntry<K, V> entry) {
+        String key = String.valueOf(entry.getKey());
+        long ordinal = count++;
+        Node<K, V> node = root;
+        int start = 0;
+        while (true) {
+            int end = key.indexOf(SEPARATOR, start);
+            node = node.child(key.substring(start, end < 0 ? key.length() : end));
+            node.add(entry, ordinal);
+            if (end < 0) {
+                return;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * @return The entries with the key or a key under it in the order they are added. Never null
+     */
+    List<LinkedEntry<K, V>> getSubtree(String key) {
+        Node<K, V> node = find(key, key.length());
+        return node == null ? Collections.emptyList() : node.entries();
+    }
+
+    /**
+     * @return The entries with a key starting with the prefix in the order they are added. Never null
+     */
+    List<LinkedEntry<K, V>> getByPrefix(String prefix) {
+        int lastSeparator = prefix.lastIndexOf(SEPARATOR);
+        Node<K, V> parent = lastSeparator < 0 ? root : find(prefix, lastSeparator);
+        if (parent == null || parent.children == null) {
+            return Collections.emptyList();
+        }
+        String segmentPrefix = prefix.substring(lastSeparator + 1);
+        SortedMap<String, Node<K, V>> matches = segmentPrefix.isEmpty() ? parent.children :
+                parent.children.subMap(segmentPrefix, segmentPrefix + Character.MAX_VALUE);
+        if (matches.size() == 1) {
+            return matches.values().iterator().next().entries();
+        }
+        return merge(matches.values());
+    }
+
+    /**
+     * @param length Length of the key to find
+     * @return Null if the key is not present
+     */
+    private Node<K, V> find(String key, int length) {
+        Node<K, V> node = root;
+        int start = 0;
+        while (node != null) {
+            int end = key.indexOf(SEPARATOR, start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+            node = node.children == null ? null : node.children.get(key.substring(start, end));
+            if (end == length) {
+                return node;
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Merges the entries of the nodes by their ordinals
+     */
+    private static <K, V> List<LinkedEntry<K, V>> merge(Collection<Node<K, V>> nodes) {
+        PriorityQueue<Cursor<K, V>> cursors = new PriorityQueue<>(Math.max(1, nodes.size()));
+        int size = 0;
+        for (Node<K, V> node : nodes) {
+            cursors.add(new Cursor<>(node));
+            size += node.size;
+        }
+        List<LinkedEntry<K, V>> entries = new ArrayList<>(size);
+        while (!cursors.isEmpty()) {
+            Cursor<K, V> cursor = cursors.poll();
+            entries.add(cursor.node.entries[cursor.position]);
+            if (++cursor.position < cursor.node.size) {
+                cursors.add(cursor);
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * A segment of a key
+     */
+    private static class Node<K, V> {
+        /**
+         * Null until the first child is added
+         */
+        private TreeMap<String, Node<K, V>> children;
+        private LinkedEntry<K, V>[] entries;
+        /**
+         * Ordinal of each entry
+         */
+        private long[] ordinals;
+        private int size;
+
+        Node() {
+            @SuppressWarnings("unchecked")
+            LinkedEntry<K, V>[] newEntries = (LinkedEntry<K, V>[]) new LinkedEntry<?, ?>[2];
+            entries = newEntries;
+            ordinals = new long[2];
+        }
+
+        private Node<K, V> child(String segment) {
+            if (children == null) {
+                children = new TreeMap<>();
+            }
+            return children.computeIfAbsent(segment, s -> new Node<>());
+        }
+
+        private void add(LinkedEntry<K, V> entry, long ordinal) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            entries[size] = entry;
+            ordinals[size++] = ordinal;
+        }
+
+        /**
+         * @return A view of the entries added until now
+         */
+        private List<LinkedEntry<K, V>> entries() {
+            return Collections.unmodifiableList(Arrays.asList(entries).subList(0, size));
+        }
+    }
+
+    /**
+     * Position in the entries of a node. Cursors are ordered by the ordinal of the entry at their position
+     */
+    private static class Cursor<K, V> implements Comparable<Cursor<K, V>> {
+        private Node<K, V> node;
+        private int position;
+
+        Cursor(Node<K, V> node) {
+            this.node = node;
+        }
+
+        @Override
+        public int compareTo(Cursor<K, V> other) {
+            return Long.compare(node.ordinals[position], other.node.ordinals[other.position]);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package torsete.util.entry;
+
+import torsete.util.entry.util.LinkedEntrySpliterator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable view of the entries of {@link LinkedEntries} as they were when the view was created by {@link LinkedEntries#freeze()}.
+ * <p>
+ * The view shares the entries with the {@link LinkedEntries}. Entries appended later on are not seen by the view, and a reload
+ * replaces entries without changing the view. So the view may be read by any number of threads without locking,
+ * while a thread appends to or reloads the {@link LinkedEntries}.
+ * <p>
+ * The linked entries are held as runs, ie. the first entry and the number of entries read in a row from a source
+ * (see {@link SourceTree}). An entry in columnar storage is held by the columns as they were.
+ * <p>
+ * Note. The successor of an entry is not part of the view. The successor of the last entry of a run may be an entry
+ * appended or reloaded later on. So the view is traversed by {@link #stream()} and not by {@link LinkedEntry#getSuccessor()}.
+ * The entries of the view must not be changed.
+ */
+public class FrozenEntries<K, V> {
+    /**
+     * First entry of each run. Null if the entries are in columnar storage
+     */
+    private final LinkedEntry<K, V>[] runFirstEntries;
+    /**
+     * Number of entries before each run, and the number of entries last
+     */
+    private final long[] runOffsets;
+    /**
+     * Null if the entries are linked
+     */
+    private final EntryColumns<K, V> columns;
+    private final LinkedEntry<K, V> lastEntry;
+    private final long size;
+
+    /**
+     * Entries of the view by key. Null until the first lookup by key
+     */
+    private volatile EntryIndex<K, V> index;
+    /**
+     * Entries of the view by the segments of their keys. Null until the first query by segments
+     */
+    private volatile EntryTrie<K, V> trie;
+
+    /**
+     * A view of linked entries
+     *
+     * @param sourceTree The runs of the entries
+     */
+    FrozenEntries(SourceTree<K, V> sourceTree, LinkedEntry<K, V> lastEntry, long size) {
+        List<LinkedEntry<K, V>> firstEntries = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        sourceTree.addRuns(firstEntries, counts);
+        @SuppressWarnings("unchecked")
+        LinkedEntry<K, V>[] runs = (LinkedEntry<K, V>[]) firstEntries.toArray(new LinkedEntry<?, ?>[0]);
+        runFirstEntries = runs;
+        runOffsets = new long[counts.size() + 1];
+        for (int i = 0; i < counts.size(); i++) {
+            runOffsets[i + 1] = runOffsets[i] + counts.get(i);
+        }
+        columns = null;
+        this.lastEntry = size == 0 ? null : lastEntry;
+        this.size = size;
+    }
+
+    /**
+     * A view of entries in columnar storage
+     *
+     * @param columns Columns which are not changed hereafter (see {@link EntryColumns#freeze()})
+     */
+    FrozenEntries(EntryColumns<K, V> columns) {
+        runFirstEntries = null;
+        runOffsets = null;
+        this.columns = columns;
+        lastEntry = null;
+        size = columns.size();
+    }
+
+    /**
+     * @return Number of entries
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return The entries in order
+     */
+    public Stream<LinkedEntry<K, V>> stream() {
+        return stream(false);
+    }
+
+    public Stream<LinkedEntry<K, V>> parallelStream() {
+        return stream(true);
+    }
+
+    /**
+     * @return Null if there are no entries
+     */
+    public LinkedEntry<K, V> getFirstEntry() {
+        if (columns != null) {
+            return size == 0 ? null : columns.entry(0);
+        }
+        return runFirstEntries.length == 0 ? null : runFirstEntries[0];
+    }
+
+    /**
+     * @return Null if there are no entries
+     */
+    public LinkedEntry<K, V> getLastEntry() {
+        if (columns != null) {
+            return size == 0 ? null : columns.entry((int) size - 1);
+        }
+        return lastEntry;
+    }
+
+    /**
+     * The entry is the last entry with the key as by {@link LinkedEntries#get(Object)}
+     *
+     * @return Null if no entry has the key
+     */
+    public LinkedEntry<K, V> get(K key) {
+        return index().getLast(key);
+    }
+
+    /**
+     * @return The entries with the key in order. Never null
+     */
+    public List<LinkedEntry<K, V>> getAll(K key) {
+        return index().getAll(key);
+    }
+
+    public boolean containsKey(K key) {
+        return index().containsKey(key);
+    }
+
+    /**
+     * As {@link LinkedEntries#getSubtree(String)}
+     *
+     * @return The entries with the key or a key under it in order. Never null
+     */
+    public List<LinkedEntry<K, V>> getSubtree(String key) {
+        return trie().getSubtree(key);
+    }
+
+    /**
+     * As {@link LinkedEntries#getByPrefix(String)}
+     *
+     * @return The entries with a key starting with the prefix in order. Never null
+     */
+    public List<LinkedEntry<K, V>> getByPrefix(String prefix) {
+        return trie().getByPrefix(prefix);
+    }
+
+    /**
+     * As {@link LinkedEntries#map()}
+     *
+     * @return Never null
+     */
+    public HashMap<K, List<V>> map() {
+        return stream().collect(LinkedEntries.toMap());
+    }
+
+    /**
+     * The index is built by the first lookup. Threads looking up at the same time may build an index each,
+     * of which one is kept
+     */
+    private EntryIndex<K, V> index() {
+        EntryIndex<K, V> currentIndex = index;
+        if (currentIndex == null) {
+            EntryIndex<K, V> newIndex = new EntryIndex<>();
+            stream().forEach(newIndex::add);
+            index = currentIndex = newIndex;
+        }
+        return currentIndex;
+    }
+
+    /**
+     * The trie is built by the first query by segments as {@link #index()}
+     */
+    private EntryTrie<K, V> trie() {
+        EntryTrie<K, V> currentTrie = trie;
+        if (currentTrie == null) {
+            EntryTrie<K, V> newTrie = new EntryTrie<>();
+            stream().forEach(newTrie::add);
+            trie = currentTrie = newTrie;
+        }
+        return currentTrie;
+    }
+
+    private Stream<LinkedEntry<K, V>> stream(boolean parallel) {
+        if (columns != null) {
+            return columns.stream(parallel);
+        }
+        return StreamSupport.stream(new RunSpliterator(0, runFirstEntries.length), parallel);
+    }
+
+    /**
+     * Splittable traversal of a range of the runs. A range of more than one run is split into two ranges of runs,
+     * and a single run is split as by {@link LinkedEntrySpliterator}
+     */
+    private class RunSpliterator implements Spliterator<LinkedEntry<K, V>> {
+        /**
+         * The run being traversed. Null if no run is started
+         */
+        private Spliterator<LinkedEntry<K, V>> current;
+        /**
+         * Next run to start
+         */
+        private int run;
+        /**
+         * End of the range of runs
+         */
+        private int end;
+
+        RunSpliterator(int run, int end) {
+            this.run = run;
+            this.end = end;
+        }
+
+        private RunSpliterator(Spliterator<LinkedEntry<K, V>> current, int run, int end) {
+            this(run, end);
+            this.current = current;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super LinkedEntry<K, V>> action) {
+            while (current == null || !current.tryAdvance(action)) {
+                if (run == end) {
+                    return false;
+                }
+                current = startRun();
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super LinkedEntry<K, V>> action) {
+            if (current != null) {
+                current.forEachRemaining(action);
+                current = null;
+            }
+            while (run < end) {
+                startRun().forEachRemaining(action);
+            }
+        }
+
+        @Override
+        public Spliterator<LinkedEntry<K, V>> trySplit() {
+            if (end - run > 1) {
+                int middle = (run + end) >>> 1;
+                RunSpliterator prefix = new RunSpliterator(current, run, middle);
+                current = null;
+                run = middle;
+                return prefix;
+            }
+            if (current != null && run < end) {
+                Spliterator<LinkedEntry<K, V>> prefix = current;
+                current = null;
+                return prefix;
+            }
+            if (current == null && run < end) {
+                current = startRun();
+            }
+            return current == null ? null : current.trySplit();
+        }
+
+        @Override
+        public long estimateSize() {
+            return (current == null ? 0 : current.estimateSize()) + runOffsets[end] - runOffsets[run];
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | SIZED | SUBSIZED;
+        }
+
+        private Spliterator<LinkedEntry<K, V>> startRun() {
+            Spliterator<LinkedEntry<K, V>> spliterator = new LinkedEntrySpliterator<>(runFirstEntries[run], runOffsets[run + 1] - runOffsets[run]);
+            run++;
+            return spliterator;
+        }
+    }
+}
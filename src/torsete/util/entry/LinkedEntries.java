@@ -1,15 +1,29 @@
 package torsete.util.entry;
 
+import torsete.util.entry.util.EntryBatchConsumer;
 import torsete.util.entry.util.EntryIterator;
+import torsete.util.entry.util.EntrySourceCache;
+import torsete.util.entry.util.IncludeListener;
 import torsete.util.entry.util.IncludingEntryIterator;
+import torsete.util.entry.util.InputStreamEntryIterator;
 import torsete.util.entry.util.LinkedEntryIterator;
+import torsete.util.entry.util.LinkedEntrySpliterator;
+import torsete.util.entry.util.MappedEntryIterator;
 import torsete.util.entry.util.ReaderEntryIterator;
+import torsete.util.entry.util.StringPool;
+import torsete.util.stream.StreamPublisher;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -25,16 +39,45 @@ import java.util.stream.StreamSupport;
  * <p>
  * The entries are accessible by {@link #stream()}, {@link #getFirstEntry()}, {@link #getLastEntry()}, {@link #map()}, {@link #properties()}, ot {@link #getEntriesAsString()}
  * <p>
+ * The appended entries are accessible by key by {@link #get(Object)}, {@link #getAll(Object)} and {@link #containsKey(Object)},
+ * and by the segments of dotted keys by {@link #getSubtree(String)} and {@link #getByPrefix(String)}.
+ * <p>
  * The entries are also accessible by {@link LinkedEntry#getSuccessor()}.
+ * <p>
+ * When the entries are appended, {@link #stream()} and {@link #parallelStream()} are sized and splittable.
+ * <p>
+ * The appended entries are linked {@link LinkedEntry} objects, or columns of keys, values, line numbers and sources
+ * (see {@link #setColumnarStorage(boolean)}).
+ * <p>
+ * Entries appended from files are reloaded from the files which have changed by {@link #reload()}.
+ * <p>
+ * The entries are appended and reloaded by one thread at a time. Other threads read an immutable view made by {@link #freeze()}.
  *
  * @param <K> Key class
  * @param <V> value class
  */
 public class LinkedEntries<K, V> {
+    /**
+     * Smallest number of appended entries making {@link #map()} and {@link #properties()} run in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
     /**
      * Optional specifikaton of inclusion of source entries
      */
     private Predicate<LinkedEntry<K, V>> includePredicate;
+    /**
+     * Optional reading of included sources ahead
+     */
+    private Executor includeExecutor;
+    /**
+     * Optional cache of the entries read from files
+     */
+    private EntrySourceCache<K, V> sourceCache;
+    /**
+     * Optional pool of keys, values and sources
+     */
+    private StringPool stringPool;
     /**
      * Optional preprocessing of entries when appending entries
      */
@@ -48,6 +91,14 @@ public class LinkedEntries<K, V> {
      * Optional source
      */
     private File file;
+    /**
+     * Optional source
+     */
+    private InputStream inputStream;
+    /**
+     * Charset of a memory mapped file source or of an input stream source. Null if the file source is read by a {@link FileReader}
+     */
+    private Charset charset;
 
     /**
      * First entry
@@ -59,9 +110,40 @@ public class LinkedEntries<K, V> {
      */
     private LinkedEntry<K, V> lastEntry;
 
+    /**
+     * Number of appended entries
+     */
+    private long size;
+
+    /**
+     * Appended entries by key. Null until the first lookup by key
+     */
+    private EntryIndex<K, V> index;
+
+    /**
+     * Appended entries by the segments of their keys. Null until the first query by segments
+     */
+    private EntryTrie<K, V> trie;
+
+    /**
+     * Appended entries in columnar storage. Null if the appended entries are linked
+     */
+    private EntryColumns<K, V> columns;
+
+    /**
+     * The linked entries by source. Not maintained for columnar storage
+     */
+    private SourceTree<K, V> sourceTree;
+
+    /**
+     * View of the appended entries. Null until a view is made, and when entries are appended or reloaded hereafter
+     */
+    private FrozenEntries<K, V> frozen;
+
     public LinkedEntries() {
         entryConsumers = new ArrayList<>();
         includePredicate = entry -> false;
+        sourceTree = new SourceTree<>();
     }
 
     public LinkedEntries<K, V> addEntryConsumer(Consumer<LinkedEntry<K, V>> entryConsumer) {
@@ -74,37 +156,139 @@ public class LinkedEntries<K, V> {
         return this;
     }
 
+    /**
+     * Enables reading of included files ahead. The entries are delivered in the same order
+     * (see {@link IncludingEntryIterator#setPrefetchExecutor(Executor)}).
+     * <p>
+     * The executor is not shut down by this
+     *
+     * @param includeExecutor Null disables reading ahead
+     */
+    public LinkedEntries<K, V> setIncludeExecutor(Executor includeExecutor) {
+        this.includeExecutor = includeExecutor;
+        return this;
+    }
+
+    /**
+     * Files and included files are read from the cache if they are unchanged. The cache may be shared with other instances
+     *
+     * @param sourceCache Null disables caching
+     */
+    public LinkedEntries<K, V> setSourceCache(EntrySourceCache<K, V> sourceCache) {
+        this.sourceCache = sourceCache;
+        return this;
+    }
+
+    /**
+     * Keys, values and sources read from the source are taken from the pool. The pool may be shared with other instances.
+     * <p>
+     * Note. A source is a file path, which is only pooled if the maximum length of the pool covers it.
+     * Keys replaced by a {@link torsete.util.entry.util.DottedEntryKeyConsumer} are pooled by the pool of the consumer
+     *
+     * @param stringPool Null disables pooling
+     */
+    public LinkedEntries<K, V> setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+        return this;
+    }
+
+    /**
+     * Stores the appended entries as columns instead of as linked entries. This saves about 30 bytes per entry.
+     * <p>
+     * The entries delivered by {@link #stream()}, {@link #getFirstEntry()}, {@link #get(Object)} etc. are views of the columns,
+     * which are created when they are delivered. {@link LinkedEntry#getSuccessor()} of a view is the view of the next entry,
+     * and the successor of a view cannot be set.
+     *
+     * @param columnar Must be set before entries are appended
+     */
+    public LinkedEntries<K, V> setColumnarStorage(boolean columnar) {
+        if (size > 0) {
+            throw new IllegalStateException("Entries are appended");
+        }
+        columns = columnar ? new EntryColumns<>() : null;
+        frozen = null;
+        return this;
+    }
+
+    /**
+     * A source replaces the source set before, also if it is of another kind
+     */
     public LinkedEntries<K, V> setSource(Reader reader) {
+        clearSource();
         this.reader = reader;
         return this;
     }
 
     public LinkedEntries<K, V> setSource(File file) throws FileNotFoundException {
+        FileReader fileReader = new FileReader(file);
+        clearSource();
         this.file = file;
-        this.reader = new FileReader(file);
+        this.reader = fileReader;
+        return this;
+    }
+
+    /**
+     * The file and the included files are memory mapped. Only lines containing entries are decoded.
+     * <p>
+     * The charset must be ASCII compatible, eg. UTF-8 or ISO-8859-1 (see {@link torsete.util.entry.util.ByteEntryIterator})
+     */
+    public LinkedEntries<K, V> setSource(Path path, Charset charset) {
+        clearSource();
+        this.file = path.toFile();
+        this.charset = charset;
         return this;
     }
 
+    /**
+     * As {@link #setSource(Path, Charset)}
+     */
+    public LinkedEntries<K, V> setSource(File file, Charset charset) {
+        return setSource(file.toPath(), charset);
+    }
+
     public LinkedEntries<K, V> setSource(String string) {
+        clearSource();
         this.reader = new StringReader(string);
         return this;
     }
 
     public LinkedEntries<K, V> setSource(InputStream inputStream) {
+        clearSource();
         this.reader = new InputStreamReader(inputStream);
         return this;
     }
 
+    /**
+     * The bytes of the input stream are decoded without a {@link Reader}. ASCII and ISO-8859-1 bytes are copied as characters,
+     * and only lines containing entries are decoded.
+     * <p>
+     * The charset must be ASCII compatible, eg. UTF-8 or ISO-8859-1 (see {@link InputStreamEntryIterator})
+     */
+    public LinkedEntries<K, V> setSource(InputStream inputStream, Charset charset) {
+        clearSource();
+        this.inputStream = inputStream;
+        this.charset = charset;
+        return this;
+    }
+
     /**
      * Appends source entries to the ordered entry set
      *
      * @return
      */
     public LinkedEntries<K, V> append() {
-        EntryIterator<K, V> iterator = newSourceIterator();
-        iterator.forEachRemaining(oe -> oe.setSuccessor(iterator.lookAhead()));
+        EntryIterator<K, V> iterator = newSourceIterator(columns == null ? sourceTree.appender(file != null, !entryConsumers.isEmpty()) : null);
+        if (columns != null) {
+            iterator.forEachRemaining(oe -> appended(columns.add(oe)));
+            iterator.close();
+            return this;
+        }
+        iterator.forEachRemaining(oe -> {
+            oe.setSuccessor(iterator.lookAhead());
+            lastEntry = oe;
+            appended(oe);
+        });
         iterator.close();
-        lastEntry = iterator.getLastEntry();
         return this;
     }
 
@@ -118,19 +302,208 @@ public class LinkedEntries<K, V> {
     public LinkedEntries<K, V> append(K key, V value) {
         LinkedEntry<K, V> entry = new LinkedEntry<>(key, value);
         entryConsumers.forEach(ec -> ec.accept(entry));
-        if (firstEntry == null) {
-            firstEntry = entry;
-        } else {
-            lastEntry.setSuccessor(entry);
+        return appendConsumed(entry);
+    }
+
+    /**
+     * Appends entries to the ordered entry set as {@link #append(Object, Object)}.
+     * The entry consumers are given batches of the entries (see {@link EntryBatchConsumer})
+     *
+     * @param entries The keys and values of the entries in order
+     * @return
+     */
+    public LinkedEntries<K, V> appendAll(Collection<? extends Map.Entry<K, V>> entries) {
+        List<LinkedEntry<K, V>> batch = new ArrayList<>(Math.min(entries.size(), EntryBatchConsumer.BATCH_SIZE));
+        for (Map.Entry<K, V> entry : entries) {
+            batch.add(new LinkedEntry<>(entry.getKey(), entry.getValue()));
+            if (batch.size() == EntryBatchConsumer.BATCH_SIZE) {
+                appendBatch(batch);
+            }
         }
-        lastEntry = entry;
+        appendBatch(batch);
         return this;
     }
 
+    /**
+     * Rereads the files which have changed since they were appended, ie. their length or last modified time differ.
+     * The entries of a changed file, including the entries of the files it includes, are replaced by the reread entries.
+     * The entries of the unchanged files are kept, so the cost is proportional to what is changed.
+     * <p>
+     * If entry consumers are added, an entry may depend on the entries preceding it (eg. by {@link torsete.util.entry.util.DottedEntryKeyConsumer}).
+     * So an appended file including a changed file is replayed: Its entries are given to the consumers in order as when they
+     * were appended. The entries of the unchanged files are copied from their keys and values as read, so they are not read
+     * again, and the changed files are reread in their place. An entry is kept if it is unchanged by the consumers.
+     * The other appended files and the entries not read from a file are kept, and are not given to the consumers.
+     * Note. The consumers continue from their state after the entries last given to them. The entries read from a snapshot
+     * are replayed as they are
+     * <p>
+     * Entries appended from a {@link Reader}, a string or by {@link #append(Object, Object)} are kept.
+     * The entries are unchanged if a changed file cannot be read.
+     *
+     * @throws UnsupportedOperationException The entries are in columnar storage
+     */
+    public LinkedEntries<K, V> reload() {
+        reloadDelta();
+        return this;
+    }
+
+    /**
+     * Reloads as {@link #reload()}
+     *
+     * @return The entries added, removed and changed by the reload
+     * @throws UnsupportedOperationException The entries are in columnar storage
+     */
+    public EntryDelta<K, V> reloadDelta() {
+        if (columns != null) {
+            throw new UnsupportedOperationException("reload is not supported by columnar storage");
+        }
+        EntryDelta<K, V> delta = new EntryDelta<>();
+        List<SourceTree.Reload<K, V>> reloads = sourceTree.reload(this::reread,
+                entryConsumers.isEmpty() ? null : entry -> entryConsumers.forEach(ec -> ec.accept(entry)));
+        if (reloads.isEmpty()) {
+            return delta;
+        }
+        reloads.forEach(reload -> delta.add(reload.getOldSource().getEntries(), reload.getNewSource().getEntries()));
+        sourceTree.relink();
+        firstEntry = sourceTree.getFirstEntry();
+        lastEntry = sourceTree.getLastEntry();
+        size = sourceTree.size();
+        index = null;
+        trie = null;
+        frozen = null;
+        return delta;
+    }
+
+    /**
+     * Writes the appended entries to a binary snapshot, which may be read by {@link #readSnapshot(Path)} instead of
+     * parsing the sources. The snapshot holds the entries in order and the length and last modified time of the files.
+     * <p>
+     * Keys, values and sources must be strings
+     *
+     * @throws UnsupportedOperationException The entries are in columnar storage
+     */
+    public LinkedEntries<K, V> writeSnapshot(Path path) throws IOException {
+        if (columns != null) {
+            throw new UnsupportedOperationException("snapshots are not written from columnar storage");
+        }
+        EntrySnapshot.write(path, () -> appendedStream(false).iterator(), sourceTree);
+        return this;
+    }
+
+    /**
+     * Reads the entries of a snapshot written by {@link #writeSnapshot(Path)}, if it is valid.
+     * The entries are as appended when the snapshot was written, so the entry consumers are not applied.
+     * <p>
+     * The snapshot is not valid if it is missing, if it is written by another version, if one of its files has changed,
+     * or if the files appended to it are not the file set by {@link #setSource(File)} or {@link #setSource(Path, Charset)}.
+     * A snapshot with appended files is not valid if no file is set.
+     * Then nothing is read, and the entries may be appended from the sources as usual.
+     *
+     * @return True if the snapshot is valid and is read
+     * @throws IOException           The snapshot cannot be read, or it is truncated or corrupt
+     * @throws IllegalStateException Entries are appended
+     */
+    public boolean readSnapshot(Path path) throws IOException {
+        if (size > 0) {
+            throw new IllegalStateException("Entries are appended");
+        }
+        EntrySnapshot<K, V> snapshot = EntrySnapshot.read(path);
+        SourceTree<K, V> snapshotTree = snapshot == null ? null : snapshot.getSourceTree();
+        Set<File> files = file == null ? Collections.emptySet() : Collections.singleton(file.getAbsoluteFile());
+        if (snapshotTree == null || snapshotTree.isChanged() || !snapshotTree.getAppendedFiles().equals(files)) {
+            return false;
+        }
+        if (columns != null) {
+            snapshot.getEntries().forEach(entry -> appended(columns.add(entry)));
+            return true;
+        }
+        sourceTree = snapshotTree;
+        sourceTree.relink();
+        firstEntry = sourceTree.getFirstEntry();
+        lastEntry = sourceTree.getLastEntry();
+        size = sourceTree.size();
+        index = null;
+        trie = null;
+        frozen = null;
+        return true;
+    }
+
+    /**
+     * Makes an immutable view of the appended entries, which may be read by any number of threads without locking,
+     * while this thread goes on appending or reloading (see {@link FrozenEntries}).
+     * <p>
+     * The view shares the entries. It costs an array of the runs of entries read in a row from a source,
+     * or a copy of the list of sources in columnar storage. The view is kept until entries are appended or reloaded,
+     * so a view is only made when the entries have changed.
+     * <p>
+     * Must be called by the thread appending and reloading. The view may be handed to the reading threads by any means,
+     * eg. a volatile field
+     */
+    public FrozenEntries<K, V> freeze() {
+        if (frozen == null) {
+            frozen = columns != null ? new FrozenEntries<>(columns.freeze()) : new FrozenEntries<>(sourceTree, lastEntry, size);
+        }
+        return frozen;
+    }
+
+    /**
+     * @return The appended files and the files they include. These files are reloaded when they change
+     */
+    public Set<File> getSourceFiles() {
+        return sourceTree.getFiles();
+    }
+
+    /**
+     * The entry is the last entry with the key. A duplicated key is overwritten as by {@link #properties()}
+     *
+     * @return Null if no appended entry has the key
+     */
+    public LinkedEntry<K, V> get(K key) {
+        return index().getLast(key);
+    }
+
+    /**
+     * @return The appended entries with the key in the order they are appended. Never null
+     */
+    public List<LinkedEntry<K, V>> getAll(K key) {
+        return index().getAll(key);
+    }
+
+    public boolean containsKey(K key) {
+        return index().containsKey(key);
+    }
+
+    /**
+     * Finds the entries under a dotted key, eg. the entries with the keys "aaa.bbb" and "aaa.bbb.ccc" are under "aaa.bbb",
+     * but the entry with the key "aaa.bbbb" is not (see {@link torsete.util.entry.util.DottedEntryKeyConsumer}).
+     * <p>
+     * The time is proportional to the number of segments of the key. The list is a view of an index, which is built by the first query
+     * and maintained when entries are appended
+     *
+     * @return The appended entries with the key or a key under it in the order they are appended. Never null
+     */
+    public List<LinkedEntry<K, V>> getSubtree(String key) {
+        return trie().getSubtree(key);
+    }
+
+    /**
+     * Finds the entries with keys starting with a prefix, eg. the entries with the keys "aaa.bbb", "aaa.bcd.e" and "aaa.b"
+     * start with "aaa.b". The time is proportional to the number of entries found as by {@link #getSubtree(String)},
+     * plus the merging of the entries of the segments starting with the last segment of the prefix
+     *
+     * @return The appended entries with a key starting with the prefix in the order they are appended. Never null
+     */
+    public List<LinkedEntry<K, V>> getByPrefix(String prefix) {
+        return trie().getByPrefix(prefix);
+    }
+
     /**
      * @return All entries
      */
     public Stream<LinkedEntry<K, V>> stream() {
+        if (size > 0) {
+            return appendedStream(false);
+        }
         EntryIterator<K, V> iterator = newEntryIterator();
         Iterable<LinkedEntry<K, V>> iterable = () -> iterator;
         Stream<LinkedEntry<K, V>> stream = StreamSupport.stream(iterable.spliterator(), false).onClose(() -> iterator.close());
@@ -138,6 +511,31 @@ public class LinkedEntries<K, V> {
         return stream;
     }
 
+    /**
+     * @return All entries. The stream is parallel if the entries are appended. Otherwise as {@link #stream()}
+     */
+    public Stream<LinkedEntry<K, V>> parallelStream() {
+        if (size > 0) {
+            return appendedStream(true);
+        }
+        return stream();
+    }
+
+    /**
+     * Publishes the entries of {@link #stream()} to one subscriber. The entries are read by the executor as they are requested
+     * (see {@link StreamPublisher})
+     */
+    public Flow.Publisher<LinkedEntry<K, V>> publisher(Executor executor) {
+        return new StreamPublisher<>(this::stream, executor);
+    }
+
+    /**
+     * @return Number of appended entries
+     */
+    public long size() {
+        return size;
+    }
+
 
     /**
      * Creates a map of the ordered entries.
@@ -147,18 +545,30 @@ public class LinkedEntries<K, V> {
      * @return Never null
      */
     public HashMap<K, List<V>> map() {
+        if (size > 0) {
+            return appendedStream(size >= PARALLEL_THRESHOLD).collect(toMap());
+        }
         HashMap<K, List<V>> map = new HashMap<>();
         EntryIterator<K, V> iterator = newEntryIterator();
         while (iterator.hasNext()) {
             LinkedEntry<K, V> linkedEntry = iterator.next();
-            if (map.get(linkedEntry.getKey()) == null) {
-                map.put(linkedEntry.getKey(), new ArrayList<>());
-            }
-            map.get(linkedEntry.getKey()).add(linkedEntry.getValue());
+            map.computeIfAbsent(linkedEntry.getKey(), k -> new ArrayList<>()).add(linkedEntry.getValue());
         }
         return map;
     }
 
+    /**
+     * Collects entries as {@link #map()}. A null key is mapped as any key
+     */
+    static <K, V> Collector<LinkedEntry<K, V>, ?, HashMap<K, List<V>>> toMap() {
+        return Collector.of(HashMap::new,
+                (map, entry) -> map.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue()),
+                (map1, map2) -> {
+                    map2.forEach((key, values) -> map1.computeIfAbsent(key, k -> new ArrayList<>()).addAll(values));
+                    return map1;
+                });
+    }
+
     /**
      * Warning! The method {@link #map} is the right choice.
      * <p>
@@ -172,6 +582,10 @@ public class LinkedEntries<K, V> {
      */
     public Properties properties() {
         Properties properties = new Properties();
+        if (size >= PARALLEL_THRESHOLD) {
+            properties.putAll(appendedStream(true).collect(Collectors.toMap(LinkedEntry::getKey, LinkedEntry::getValue, (v1, v2) -> v2)));
+            return properties;
+        }
         stream().forEach(oe -> properties.put(oe.getKey(), oe.getValue()));
         return properties;
     }
@@ -185,41 +599,153 @@ public class LinkedEntries<K, V> {
 
 
     public LinkedEntry<K, V> getFirstEntry() {
+        if (columns != null) {
+            return columns.size() == 0 ? null : columns.entry(0);
+        }
         return firstEntry;
     }
 
     public LinkedEntry<K, V> getLastEntry() {
+        if (columns != null) {
+            return columns.size() == 0 ? null : columns.entry(columns.size() - 1);
+        }
         return lastEntry;
     }
 
-    private EntryIterator<K, V> newEntryIterator() {
-        EntryIterator<K, V> iterator = null;
-        if (firstEntry != null) {
-            iterator = newLinkedEntryIterator();
+    /**
+     * Forgets the source set by a setSource method, so the next source is the only one
+     */
+    private void clearSource() {
+        reader = null;
+        file = null;
+        inputStream = null;
+        charset = null;
+    }
+
+    private void appendBatch(List<LinkedEntry<K, V>> batch) {
+        EntryBatchConsumer.acceptAll(entryConsumers, batch);
+        batch.forEach(this::appendConsumed);
+        batch.clear();
+    }
+
+    /**
+     * Appends an entry given to the entry consumers
+     */
+    private LinkedEntries<K, V> appendConsumed(LinkedEntry<K, V> entry) {
+        if (columns != null) {
+            appended(columns.add(entry));
+            return this;
+        }
+        if (firstEntry == null) {
+            firstEntry = entry;
+        } else {
+            lastEntry.setSuccessor(entry);
+        }
+        lastEntry = entry;
+        sourceTree.add(entry);
+        appended(entry);
+        return this;
+    }
+
+    /**
+     * Counts and indexes an appended entry
+     */
+    private void appended(LinkedEntry<K, V> entry) {
+        size++;
+        frozen = null;
+        if (index != null) {
+            index.add(entry);
+        }
+        if (trie != null) {
+            trie.add(entry);
+        }
+    }
+
+    /**
+     * The index is built by the first lookup. Hereafter it is maintained when entries are appended.
+     * <p>
+     * Note. A key replaced after the entry is appended is not reflected by the index
+     */
+    private EntryIndex<K, V> index() {
+        if (index == null) {
+            EntryIndex<K, V> newIndex = new EntryIndex<>();
+            appendedStream(false).forEach(newIndex::add);
+            index = newIndex;
+        }
+        return index;
+    }
+
+    /**
+     * The trie is built by the first query by segments, and maintained as {@link #index()}
+     */
+    private EntryTrie<K, V> trie() {
+        if (trie == null) {
+            EntryTrie<K, V> newTrie = new EntryTrie<>();
+            appendedStream(false).forEach(newTrie::add);
+            trie = newTrie;
+        }
+        return trie;
+    }
+
+    /**
+     * @param parallel True if the stream should be parallel
+     * @return The appended entries
+     */
+    private Stream<LinkedEntry<K, V>> appendedStream(boolean parallel) {
+        if (columns != null) {
+            return columns.stream(parallel);
         }
-        if (iterator == null) {
-            return newSourceIterator();
+        return StreamSupport.stream(new LinkedEntrySpliterator<>(firstEntry, size), parallel);
+    }
+
+    private EntryIterator<K, V> newEntryIterator() {
+        LinkedEntry<K, V> first = getFirstEntry();
+        if (first == null) {
+            return newSourceIterator(null);
         }
+        EntryIterator<K, V> iterator = newLinkedEntryIterator(first);
         iterator.open();
-        firstEntry = iterator.getFirstEntry();
         return iterator;
     }
 
     /**
-     * Iterates the source set by {@link #setSource(File)} or {@link #setSource(Reader)}
+     * Rereads the file of a source and the files it includes
+     *
+     * @return The linked entries by source
+     */
+    private SourceTree.Source<K, V> reread(SourceTree.Source<K, V> source) {
+        return SourceTree.read(true, !entryConsumers.isEmpty(), includeListener -> {
+            IncludingEntryIterator<K, V> iterator = newIncludingIterator(fileSourceFactoryFunction(), includeListener);
+            try {
+                iterator.open(source.getSource());
+                iterator.forEachRemaining(oe -> oe.setSuccessor(iterator.lookAhead()));
+            } finally {
+                iterator.close();
+            }
+        });
+    }
+
+    /**
+     * Iterates the source set by {@link #setSource(File)}, {@link #setSource(Path, Charset)} or {@link #setSource(Reader)}
      *
+     * @param includeListener Null if the structure of the source is not followed
      * @return
      */
-    private EntryIterator<K, V> newSourceIterator() {
+    private EntryIterator<K, V> newSourceIterator(IncludeListener<K, V> includeListener) {
         EntryIterator<K, V> iterator = null;
         if (file != null) {
-            iterator = newFileterator();
+            iterator = newIncludingIterator(fileSourceFactoryFunction(), includeListener);
+        } else if (inputStream != null) {
+            iterator = newInputStreamIterator(includeListener);
         } else if (reader != null) {
-            iterator = newReaderIterator();
+            iterator = newReaderIterator(includeListener);
         } else {
             throw new RuntimeException("Source not defined");
         }
         iterator.open();
+        if (columns != null) {
+            return iterator;
+        }
         if (firstEntry == null) {
             firstEntry = iterator.getFirstEntry();
         } else {
@@ -229,25 +755,43 @@ public class LinkedEntries<K, V> {
     }
 
     /**
-     * Iterates a file
+     * Iterates a file. The file is the given source, or the file set by {@link #setSource(File)} if no source is given
      *
      * @return
      */
-    private EntryIterator<K, V> newFileterator() {
-        BiFunction<V, V, EntryIterator<K, V>> sourceFactoryFunction = (parentSource, source) -> {
+    private BiFunction<V, V, EntryIterator<K, V>> fileSourceFactoryFunction() {
+        return (parentSource, source) -> {
             String sourceString = parentSource == null ?
-                    file.getAbsolutePath() :
+                    (source == null ? file.getAbsolutePath() : source.toString()) :
                     new File(parentSource.toString()).getParent() + File.separator + source;
             File sourceFile = new File(sourceString);
-            try {
-                return new ReaderEntryIterator<K, V>()
-                        .setReader(new FileReader(sourceFile))
-                        .setSource((V) sourceFile.getAbsolutePath());
-            } catch (FileNotFoundException e) {
-                throw new RuntimeException(e);
+            if (sourceCache != null) {
+                return sourceCache.read(sourceFile, this::newFileSourceIterator).iterator();
             }
+            return newFileSourceIterator(sourceFile);
         };
-        return newIncludingIterator(sourceFactoryFunction);
+    }
+
+    /**
+     * Iterates one file
+     *
+     * @return
+     */
+    private EntryIterator<K, V> newFileSourceIterator(File sourceFile) {
+        try {
+            if (charset != null) {
+                return new MappedEntryIterator<K, V>()
+                        .setFile(sourceFile, charset)
+                        .setStringPool(stringPool)
+                        .setSource((V) sourceFile.getAbsolutePath());
+            }
+            return new ReaderEntryIterator<K, V>()
+                    .setReader(new FileReader(sourceFile))
+                    .setStringPool(stringPool)
+                    .setSource((V) sourceFile.getAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     /**
@@ -255,26 +799,45 @@ public class LinkedEntries<K, V> {
      *
      * @return
      */
-    private EntryIterator<K, V> newReaderIterator() {
+    private EntryIterator<K, V> newReaderIterator(IncludeListener<K, V> includeListener) {
+        BiFunction<V, V, EntryIterator<K, V>> sourceFactoryFunction = (parentSource, source) -> {
+            if (parentSource != null) {
+                throw new UnsupportedOperationException("include is not supported");
+            }
+            return new ReaderEntryIterator<K, V>().setReader(reader).setStringPool(stringPool);
+        };
+        return newIncludingIterator(sourceFactoryFunction, includeListener);
+    }
+
+    /**
+     * Iterates an input stream
+     *
+     * @return
+     */
+    private EntryIterator<K, V> newInputStreamIterator(IncludeListener<K, V> includeListener) {
         BiFunction<V, V, EntryIterator<K, V>> sourceFactoryFunction = (parentSource, source) -> {
             if (parentSource != null) {
                 throw new UnsupportedOperationException("include is not supported");
             }
-            return new ReaderEntryIterator<K, V>().setReader(reader);
+            return new InputStreamEntryIterator<K, V>().setInputStream(inputStream, charset).setStringPool(stringPool);
         };
-        return newIncludingIterator(sourceFactoryFunction);
+        return newIncludingIterator(sourceFactoryFunction, includeListener);
     }
 
     /**
      * Iterates an including structure
      *
      * @param sourceFactoryFunction
+     * @param includeListener       Null if the structure is not followed
      * @return
      */
-    private EntryIterator<K, V> newIncludingIterator(BiFunction<V, V, EntryIterator<K, V>> sourceFactoryFunction) {
-        EntryIterator<K, V> iterator = new IncludingEntryIterator<K, V>()
+    private IncludingEntryIterator<K, V> newIncludingIterator(BiFunction<V, V, EntryIterator<K, V>> sourceFactoryFunction,
+                                                              IncludeListener<K, V> includeListener) {
+        IncludingEntryIterator<K, V> iterator = new IncludingEntryIterator<K, V>()
                 .setSourceFactoryFunction(sourceFactoryFunction)
-                .setIncludePredicate(includePredicate);
+                .setIncludePredicate(includePredicate)
+                .setPrefetchExecutor(includeExecutor)
+                .setIncludeListener(includeListener);
         entryConsumers.forEach(ec -> iterator.addEntryConsumer(ec));
         return iterator;
     }
@@ -284,8 +847,8 @@ public class LinkedEntries<K, V> {
      *
      * @return
      */
-    private EntryIterator<K, V> newLinkedEntryIterator() {
-        return new LinkedEntryIterator(firstEntry);
+    private EntryIterator<K, V> newLinkedEntryIterator(LinkedEntry<K, V> first) {
+        return new LinkedEntryIterator(first);
     }
 }
 
@@ -0,0 +1,221 @@
+package torsete.util.entry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reloads {@link LinkedEntries} when the appended files or the files they include are changed, and publishes the
+ * added, removed and changed entries to the listeners.
+ * <p>
+ * The folders of the files are watched by a {@link WatchService}, so the files are not polled. The events of a burst
+ * (eg. an editor saving a file) are collected until no event of a watched file has arrived for the debounce time, or at most
+ * for the maximum delay, and are then followed by one {@link LinkedEntries#reloadDelta()}. Events of the other files in the
+ * folders are ignored. The watched files are updated after each reload, as the includes may have changed.
+ * <p>
+ * The reload and the listeners run on the thread of the watcher. The reload is synchronized on the {@link LinkedEntries},
+ * so a reader synchronizing on it sees the entries before or after a reload. An exception thrown by the reload or by a listener
+ * is given to the exception handler, and the watcher goes on watching.
+ * <p>
+ * Note. A file is reloaded only if its length or last modified time has changed (see {@link LinkedEntries#reload()})
+ */
+public class LinkedEntriesWatcher<K, V> implements Closeable {
+    private LinkedEntries<K, V> linkedEntries;
+    private long debounceMillis;
+    private long maxDelayMillis;
+    private List<Consumer<EntryDelta<K, V>>> listeners;
+    private Consumer<RuntimeException> exceptionHandler;
+
+    private WatchService watchService;
+    /**
+     * Watch keys by watched folder
+     */
+    private Map<Path, WatchKey> watchKeys;
+    private Set<Path> watchedFiles;
+    private Thread thread;
+
+    public LinkedEntriesWatcher(LinkedEntries<K, V> linkedEntries) {
+        this.linkedEntries = linkedEntries;
+        debounceMillis = 100;
+        maxDelayMillis = 1000;
+        listeners = new CopyOnWriteArrayList<>();
+        exceptionHandler = e -> thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        watchKeys = new HashMap<>();
+        watchedFiles = new HashSet<>();
+    }
+
+    /**
+     * @param debounceMillis The time without events before the entries are reloaded
+     */
+    public LinkedEntriesWatcher<K, V> setDebounceMillis(long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+        return this;
+    }
+
+    /**
+     * @param maxDelayMillis The longest time a reload is postponed by a burst of events, which never pauses for the debounce time
+     */
+    public LinkedEntriesWatcher<K, V> setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = maxDelayMillis;
+        return this;
+    }
+
+    /**
+     * @param listener Is called after a reload which has added, removed or changed entries
+     */
+    public LinkedEntriesWatcher<K, V> addListener(Consumer<EntryDelta<K, V>> listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * @param exceptionHandler Is called if a reload fails, eg. if a file is missing, or if a listener throws an exception.
+     *                         The next change of a file reloads again. The default gives the exception to the
+     *                         uncaught exception handler of the watcher thread (see {@link Thread#getUncaughtExceptionHandler()}),
+     *                         but the thread is not terminated
+     */
+    public LinkedEntriesWatcher<K, V> setExceptionHandler(Consumer<RuntimeException> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+        return this;
+    }
+
+    /**
+     * Starts watching the files of the appended entries
+     */
+    public LinkedEntriesWatcher<K, V> start() throws IOException {
+        if (thread != null) {
+            throw new IllegalStateException("The watcher is started");
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        synchronized (linkedEntries) {
+            watch(linkedEntries.getSourceFiles());
+        }
+        thread = new Thread(this::run, "LinkedEntriesWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Stops watching. A running reload is completed
+     */
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                if (!isChanged(watchService.take())) {
+                    continue;
+                }
+                long now = System.nanoTime();
+                long debounceEnd = now + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+                long maxDelayEnd = now + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                long wait = TimeUnit.MILLISECONDS.toNanos(Math.min(debounceMillis, maxDelayMillis));
+                while (wait > 0) {
+                    WatchKey watchKey = watchService.poll(wait, TimeUnit.NANOSECONDS);
+                    now = System.nanoTime();
+                    if (watchKey != null && isChanged(watchKey)) {
+                        debounceEnd = now + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+                    }
+                    wait = Math.min(debounceEnd - now, maxDelayEnd - now);
+                }
+                reload();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed by close()
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reload() {
+        EntryDelta<K, V> delta;
+        try {
+            synchronized (linkedEntries) {
+                delta = linkedEntries.reloadDelta();
+                watch(linkedEntries.getSourceFiles());
+            }
+        } catch (RuntimeException e) {
+            exceptionHandler.accept(e);
+            return;
+        }
+        if (!delta.isEmpty()) {
+            for (Consumer<EntryDelta<K, V>> listener : listeners) {
+                try {
+                    listener.accept(delta);
+                } catch (RuntimeException e) {
+                    exceptionHandler.accept(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Consumes the events of a watch key
+     *
+     * @return True if a watched file may have changed
+     */
+    private boolean isChanged(WatchKey watchKey) {
+        boolean changed = false;
+        Path folder = (Path) watchKey.watchable();
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                    watchedFiles.contains(folder.resolve((Path) event.context()));
+        }
+        watchKey.reset();
+        return changed;
+    }
+
+    /**
+     * Watches the folders of the files, and stops watching the other folders
+     */
+    private void watch(Set<File> files) {
+        Set<Path> folders = new HashSet<>();
+        Set<Path> newWatchedFiles = new HashSet<>();
+        for (File file : files) {
+            Path path = file.toPath().toAbsolutePath();
+            newWatchedFiles.add(path);
+            folders.add(path.getParent());
+        }
+        for (Path folder : folders) {
+            if (!watchKeys.containsKey(folder)) {
+                try {
+                    watchKeys.put(folder, folder.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        watchKeys.keySet().removeIf(folder -> {
+            if (folders.contains(folder)) {
+                return false;
+            }
+            watchKeys.get(folder).cancel();
+            return true;
+        });
+        watchedFiles = newWatchedFiles;
+    }
+}
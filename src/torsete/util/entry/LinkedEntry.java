@@ -1,17 +1,22 @@
 package torsete.util.entry;
 
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Properties;
+import java.util.Objects;
 
 /**
  * An ordered {@link Map.Entry}. The ordering of a set of {@link Map.Entry} is implemented by a successor for each element of the set
+ * <p>
+ * The key and the value are held directly by the element. {@link #getEntry()} is a view of them.
  */
 public class LinkedEntry<K, V> {
     /**
-     * The entry
+     * The entry key
      */
-    private Map.Entry<K, V> entry;
+    private K key;
+    /**
+     * The entry value
+     */
+    private V value;
     /**
      * Succesor successor of the entry. Is null for the last element
      */
@@ -26,26 +31,28 @@ public class LinkedEntry<K, V> {
     private V source;
 
     public LinkedEntry(Map.Entry<K, V> entry) {
-        this.entry = entry;
+        this(entry.getKey(), entry.getValue());
     }
 
     public LinkedEntry(K key, V value) {
-        Map<K, V> map = new HashMap<>();
-        map.put(key, value);
-        this.entry = map.entrySet().iterator().next();
+        this.key = key;
+        this.value = value;
     }
 
 
     public K getKey() {
-        return entry.getKey();
+        return key;
     }
 
     public V getValue() {
-        return entry.getValue();
+        return value;
     }
 
+    /**
+     * @return A view of the key and the value. {@link Map.Entry#setValue(Object)} is written through to this element
+     */
     public Map.Entry<K, V> getEntry() {
-        return entry;
+        return new EntryView();
     }
 
     /**
@@ -59,21 +66,28 @@ public class LinkedEntry<K, V> {
         this.successor = successor;
     }
 
+    /**
+     * Copies the key and the value of the entry
+     */
     public void setEntry(Map.Entry<K, V> entry) {
-        this.entry = entry;
+        this.key = entry.getKey();
+        this.value = entry.getValue();
     }
 
     /**
-     * "Replaces" the entry key.
-     * <p>
-     * The existing entry is overwritten by a new entry with the same value and a new key.
+     * Replaces the entry key. The value is kept
      *
      * @param newKey
      */
     public void replaceKey(K newKey) {
-        Properties properties = new Properties();
-        properties.put(newKey, getValue());
-        setEntry((Map.Entry<K, V>) properties.entrySet().iterator().next());
+        this.key = newKey;
+    }
+
+    /**
+     * Replaces the entry value. Used by {@link #getEntry()}
+     */
+    void replaceValue(V newValue) {
+        this.value = newValue;
     }
 
     /**
@@ -104,12 +118,55 @@ public class LinkedEntry<K, V> {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
+        V source = getSource();
+        Integer lineNumber = getLineNumber();
+        LinkedEntry<K, V> successor = getSuccessor();
         sb.append(source == null ? "" : (source.toString() + " :"));
         sb.append(lineNumber == null ? "" : (lineNumber.toString() + ": "));
-        sb.append(entry.toString());
-        sb.append(successor == null ? "" : " successor=" + successor.getEntry());
+        sb.append(getKey() + "=" + getValue());
+        sb.append(successor == null ? "" : " successor=" + successor.getKey() + "=" + successor.getValue());
         return sb.toString();
     }
 
+    /**
+     * {@link Map.Entry} of the key and the value of the element
+     */
+    private class EntryView implements Map.Entry<K, V> {
+        @Override
+        public K getKey() {
+            return LinkedEntry.this.getKey();
+        }
+
+        @Override
+        public V getValue() {
+            return LinkedEntry.this.getValue();
+        }
+
+        @Override
+        public V setValue(V newValue) {
+            V oldValue = getValue();
+            replaceValue(newValue);
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
 
 }
@@ -0,0 +1,657 @@
+package torsete.util.entry;
+
+import torsete.util.entry.util.IncludeListener;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * The appended entries by source: Which entries are read from which file, and where the files are included.
+ * <p>
+ * A source holds a list of parts in the order of the entries. A part is a run of entries read in a row from the source,
+ * or an included source. The entries of a run are linked, and the runs are linked by {@link #relink()}.
+ * <p>
+ * A changed file is reread into a new source by {@link #reload(Function, Consumer)}. The parts of the changed source are
+ * replaced, so the entries of the unchanged sources are kept.
+ * <p>
+ * A run may hold the keys and values of its entries as read, ie. before the entry consumers changed them. Then an appended
+ * file including a changed file is replayed from them, so the entry consumers are given its entries in order again.
+ */
+class SourceTree<K, V> {
+    /**
+     * The appended sources and the entries appended without a source
+     */
+    private Source<K, V> root;
+
+    private LinkedEntry<K, V> firstEntry;
+    private LinkedEntry<K, V> lastEntry;
+    private long size;
+
+    SourceTree() {
+        root = new Source<>(null, false);
+    }
+
+    private SourceTree(Source<K, V> root) {
+        this.root = root;
+    }
+
+    /**
+     * @param files  True if the sources are file paths, which are reloaded when the files change
+     * @param asRead True if the keys and values of the entries are held as read, so they may be replayed
+     * @return Follower of an appending iterator. The sources are added to the end of the tree
+     */
+    IncludeListener<K, V> appender(boolean files, boolean asRead) {
+        return new Builder<>(root, files, asRead);
+    }
+
+    /**
+     * Adds an entry appended without a source
+     */
+    void add(LinkedEntry<K, V> entry) {
+        root.add(entry);
+    }
+
+    /**
+     * Rereads the changed files in the order of the entries. The tree is not changed if a file cannot be reread
+     *
+     * @param reader   Rereads the file of a source into a new source (see {@link #read(boolean, boolean, Consumer)})
+     * @param replayer Null if only the changed files are reread. Otherwise an appended file including a changed file
+     *                 is replayed: The unchanged entries are copied from their keys and values as read and given to the
+     *                 replayer, and the changed files are reread in their place. The entries not read from a file are kept
+     * @return The reread and replayed sources. Empty if no file is changed
+     */
+    List<Reload<K, V>> reload(Function<Source<K, V>, Source<K, V>> reader, Consumer<LinkedEntry<K, V>> replayer) {
+        List<Reload<K, V>> reloads = new ArrayList<>();
+        root.reload(reader, replayer, reloads);
+        reloads.forEach(Reload::replace);
+        return reloads;
+    }
+
+    /**
+     * Links the runs in the order of the entries, and counts the entries
+     */
+    void relink() {
+        firstEntry = null;
+        lastEntry = null;
+        size = 0;
+        root.relink(this);
+        if (lastEntry != null) {
+            lastEntry.setSuccessor(null);
+        }
+    }
+
+    /**
+     * Adds the runs in the order of the entries
+     *
+     * @param firstEntries The first entry of each run
+     * @param counts       The number of entries of each run
+     */
+    void addRuns(List<LinkedEntry<K, V>> firstEntries, List<Integer> counts) {
+        root.addRuns(firstEntries, counts);
+    }
+
+    /**
+     * @return The files of the sources, which are reloaded when they change
+     */
+    Set<File> getFiles() {
+        Set<File> files = new LinkedHashSet<>();
+        root.addFiles(files);
+        return files;
+    }
+
+    /**
+     * @return The files of the appended sources, ie. not the included files
+     */
+    Set<File> getAppendedFiles() {
+        Set<File> files = new LinkedHashSet<>();
+        for (Part<K, V> part : root.parts) {
+            if (part.getFile() != null) {
+                files.add(part.getFile());
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @return True if one of the files is changed since it was read
+     */
+    boolean isChanged() {
+        return root.isChangedTree();
+    }
+
+    /**
+     * Writes the sources and the number of entries of the runs
+     *
+     * @param sourceIds Id of a source. -1 if the source is null
+     */
+    void write(DataOutput out, ToIntFunction<V> sourceIds) throws IOException {
+        root.writeSource(out, sourceIds);
+    }
+
+    /**
+     * Reads a tree written by {@link #write(DataOutput, ToIntFunction)}
+     *
+     * @param sources The source of an id. Null if the id is unknown
+     * @param entries The linked entries of the runs in order
+     * @throws IOException The tree is not valid, eg. if it does not match the entries
+     */
+    static <K, V> SourceTree<K, V> read(ByteBuffer in, IntFunction<V> sources, Iterator<LinkedEntry<K, V>> entries)
+            throws IOException {
+        return new SourceTree<>(Source.read(in, sources, entries));
+    }
+
+    LinkedEntry<K, V> getFirstEntry() {
+        return firstEntry;
+    }
+
+    LinkedEntry<K, V> getLastEntry() {
+        return lastEntry;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Reads a source into a new source
+     *
+     * @param files  True if the source is a file path
+     * @param asRead True if the keys and values of the entries are held as read
+     * @param read   Reads the source followed by the given listener
+     */
+    static <K, V> Source<K, V> read(boolean files, boolean asRead, Consumer<IncludeListener<K, V>> read) {
+        Builder<K, V> builder = new Builder<>(new Source<>(null, false), files, asRead);
+        read.accept(builder);
+        return builder.firstSource;
+    }
+
+    /**
+     * A run of entries or an included source
+     */
+    private interface Part<K, V> {
+        /**
+         * @return The file of a source. Null if the part is not reloaded
+         */
+        File getFile();
+
+        /**
+         * @return True if one of the files of the part is changed since it was read
+         */
+        boolean isChangedTree();
+
+        void addEntries(List<LinkedEntry<K, V>> entries);
+
+        void addRuns(List<LinkedEntry<K, V>> firstEntries, List<Integer> counts);
+
+        void addFiles(Set<File> files);
+
+        /**
+         * Links the entries of the part to the last entry of the tree
+         */
+        void relink(SourceTree<K, V> tree);
+
+        /**
+         * Rereads the part as {@link SourceTree#reload(Function, Consumer)}
+         */
+        void reload(Function<Source<K, V>, Source<K, V>> reader, Consumer<LinkedEntry<K, V>> replayer, List<Reload<K, V>> reloads);
+
+        /**
+         * Adds the part to a replayed source. The changed files are reread
+         */
+        void replay(Source<K, V> replayed, Function<Source<K, V>, Source<K, V>> reader, Consumer<LinkedEntry<K, V>> replayer);
+
+        /**
+         * Writes a flag telling if the part is a run, followed by the part
+         */
+        void write(DataOutput out, ToIntFunction<V> sourceIds) throws IOException;
+    }
+
+    /**
+     * A source and its parts
+     */
+    static class Source<K, V> implements Part<K, V> {
+        private V source;
+        /**
+         * Null if the source is not reloaded
+         */
+        private File file;
+        private long length;
+        private long lastModified;
+        /**
+         * Runs and included sources
+         */
+        private List<Part<K, V>> parts;
+        /**
+         * The last part, if it is a run. Null if the last part is a source
+         */
+        private Run<K, V> lastRun;
+
+        Source(V source, boolean file) {
+            this.source = source;
+            if (file && source != null) {
+                this.file = new File(source.toString());
+                length = this.file.length();
+                lastModified = this.file.lastModified();
+            }
+            parts = new ArrayList<>();
+        }
+
+        V getSource() {
+            return source;
+        }
+
+        /**
+         * @return The entries of the source and of its included sources in order
+         */
+        List<LinkedEntry<K, V>> getEntries() {
+            List<LinkedEntry<K, V>> entries = new ArrayList<>();
+            addEntries(entries);
+            return entries;
+        }
+
+        /**
+         * @return True if the file is changed since it was read
+         */
+        boolean isChanged() {
+            return file != null && (file.length() != length || file.lastModified() != lastModified);
+        }
+
+        @Override
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public boolean isChangedTree() {
+            if (isChanged()) {
+                return true;
+            }
+            for (Part<K, V> part : parts) {
+                if (part.isChangedTree()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void addEntries(List<LinkedEntry<K, V>> entries) {
+            parts.forEach(part -> part.addEntries(entries));
+        }
+
+        @Override
+        public void addRuns(List<LinkedEntry<K, V>> firstEntries, List<Integer> counts) {
+            parts.forEach(part -> part.addRuns(firstEntries, counts));
+        }
+
+        @Override
+        public void addFiles(Set<File> files) {
+            if (file != null) {
+                files.add(file);
+            }
+            parts.forEach(part -> part.addFiles(files));
+        }
+
+        @Override
+        public void relink(SourceTree<K, V> tree) {
+            parts.forEach(part -> part.relink(tree));
+        }
+
+        /**
+         * An appended file including a changed file is replayed as a whole, as its entries may depend on the entries preceding them
+         */
+        @Override
+        public void reload(Function<Source<K, V>, Source<K, V>> reader, Consumer<LinkedEntry<K, V>> replayer, List<Reload<K, V>> reloads) {
+            if (isChanged()) {
+                reloads.add(new Reload<>(this, reader.apply(this)));
+                return;
+            }
+            if (replayer != null && file != null) {
+                if (isChangedTree()) {
+                    reloads.add(new Reload<>(this, replayed(reader, replayer)));
+                }
+                return;
+            }
+            parts.forEach(part -> part.reload(reader, replayer, reloads));
+        }
+
+        @Override
+        public void replay(Source<K, V> replayed, Function<Source<K, V>, Source<K, V>> reader, Consumer<LinkedEntry<K, V>> replayer) {
+            replayed.add(replayed(reader, replayer));
+        }
+
+        /**
+         * @return A new source of the replayed parts. This source is not changed
+         */
+        private Source<K, V> replayed(Function<Source<K, V>, Source<K, V>> reader, Consumer<LinkedEntry<K, V>> replayer) {
+            if (isChanged()) {
+                return reader.apply(this);
+            }
+            Source<K, V> replayed = new Source<>(source, false);
+            replayed.file = file;
+            replayed.length = length;
+            replayed.lastModified = lastModified;
+            parts.forEach(part -> part.replay(replayed, reader, replayer));
+            return replayed;
+        }
+
+        @Override
+        public void write(DataOutput out, ToIntFunction<V> sourceIds) throws IOException {
+            out.writeBoolean(false);
+            writeSource(out, sourceIds);
+        }
+
+        /**
+         * Writes the source and its parts
+         */
+        private void writeSource(DataOutput out, ToIntFunction<V> sourceIds) throws IOException {
+            out.writeInt(source == null ? -1 : sourceIds.applyAsInt(source));
+            out.writeBoolean(file != null);
+            out.writeLong(length);
+            out.writeLong(lastModified);
+            out.writeInt(parts.size());
+            for (Part<K, V> part : parts) {
+                part.write(out, sourceIds);
+            }
+        }
+
+        /**
+         * Reads a source written by {@link #writeSource(DataOutput, ToIntFunction)}
+         */
+        private static <K, V> Source<K, V> read(ByteBuffer in, IntFunction<V> sources, Iterator<LinkedEntry<K, V>> entries)
+                throws IOException {
+            int sourceId = in.getInt();
+            V sourceValue = sourceId == -1 ? null : sources.apply(sourceId);
+            if (sourceId != -1 && sourceValue == null) {
+                throw new IOException("Unknown source " + sourceId);
+            }
+            Source<K, V> source = new Source<>(sourceValue, false);
+            if (in.get() != 0) {
+                if (sourceValue == null) {
+                    throw new IOException("A file without a source");
+                }
+                source.file = new File(sourceValue.toString());
+            }
+            source.length = in.getLong();
+            source.lastModified = in.getLong();
+            int partCount = in.getInt();
+            if (partCount < 0 || partCount > in.remaining() / 5) {
+                throw new IOException("Invalid number of parts " + partCount);
+            }
+            for (int i = 0; i < partCount; i++) {
+                if (in.get() != 0) {
+                    int count = in.getInt();
+                    if (count < 0) {
+                        throw new IOException("Invalid number of entries " + count);
+                    }
+                    for (int j = 0; j < count; j++) {
+                        if (!entries.hasNext()) {
+                            throw new IOException("The sources cover more entries than there are");
+                        }
+                        source.add(entries.next());
+                    }
+                } else {
+                    source.add(read(in, sources, entries));
+                }
+            }
+            return source;
+        }
+
+        private void add(LinkedEntry<K, V> entry) {
+            if (lastRun == null) {
+                lastRun = new Run<>(entry);
+                parts.add(lastRun);
+            } else {
+                lastRun.add(entry);
+            }
+        }
+
+        /**
+         * Adds an entry and its key and value as read
+         */
+        private void add(LinkedEntry<K, V> entry, K readKey, V readValue) {
+            add(entry);
+            lastRun.addRead(readKey, readValue);
+        }
+
+        private void add(Source<K, V> includedSource) {
+            parts.add(includedSource);
+            lastRun = null;
+        }
+
+        private void copy(Source<K, V> other) {
+            file = other.file;
+            length = other.length;
+            lastModified = other.lastModified;
+            parts = other.parts;
+            lastRun = other.lastRun;
+        }
+    }
+
+    /**
+     * Entries read in a row from a source
+     */
+    private static class Run<K, V> implements Part<K, V> {
+        private LinkedEntry<K, V> first;
+        private LinkedEntry<K, V> last;
+        private int count;
+        /**
+         * The keys and values of the entries as read. Null if they are not held
+         */
+        private List<K> readKeys;
+        private List<V> readValues;
+
+        Run(LinkedEntry<K, V> first) {
+            this.first = first;
+            this.last = first;
+            count = 1;
+        }
+
+        private void add(LinkedEntry<K, V> entry) {
+            last = entry;
+            count++;
+        }
+
+        /**
+         * Holds the key and value as read of the entry added last
+         */
+        private void addRead(K readKey, V readValue) {
+            if (readKeys == null) {
+                readKeys = new ArrayList<>();
+                readValues = new ArrayList<>();
+            }
+            readKeys.add(readKey);
+            readValues.add(readValue);
+        }
+
+        @Override
+        public File getFile() {
+            return null;
+        }
+
+        @Override
+        public boolean isChangedTree() {
+            return false;
+        }
+
+        @Override
+        public void addEntries(List<LinkedEntry<K, V>> entries) {
+            forEach(entries::add);
+        }
+
+        @Override
+        public void addRuns(List<LinkedEntry<K, V>> firstEntries, List<Integer> counts) {
+            firstEntries.add(first);
+            counts.add(count);
+        }
+
+        @Override
+        public void addFiles(Set<File> files) {
+        }
+
+        @Override
+        public void relink(SourceTree<K, V> tree) {
+            if (tree.lastEntry == null) {
+                tree.firstEntry = first;
+            } else {
+                tree.lastEntry.setSuccessor(first);
+            }
+            tree.lastEntry = last;
+            tree.size += count;
+        }
+
+        /**
+         * The entries of a run are not reread
+         */
+        @Override
+        public void reload(Function<Source<K, V>, Source<K, V>> reader, Consumer<LinkedEntry<K, V>> replayer, List<Reload<K, V>> reloads) {
+        }
+
+        /**
+         * The entries are copied from their keys and values as read, or as they are if these are not held, and given to the replayer.
+         * An entry is kept if its copy is equal, and the entries following it in the run are kept as well.
+         * So the kept entries, which may be seen by a {@link FrozenEntries}, are not changed
+         */
+        @Override
+        public void replay(Source<K, V> replayed, Function<Source<K, V>, Source<K, V>> reader, Consumer<LinkedEntry<K, V>> replayer) {
+            List<LinkedEntry<K, V>> entries = new ArrayList<>(count);
+            forEach(entries::add);
+            List<LinkedEntry<K, V>> copies = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                LinkedEntry<K, V> entry = entries.get(i);
+                LinkedEntry<K, V> copy = new LinkedEntry<>(readKeys == null ? entry.getKey() : readKeys.get(i),
+                        readValues == null ? entry.getValue() : readValues.get(i));
+                copy.setLineNumber(entry.getLineNumber()).setSource(entry.getSource());
+                replayer.accept(copy);
+                copies.add(copy);
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                LinkedEntry<K, V> entry = entries.get(i);
+                if (!Objects.equals(entry.getKey(), copies.get(i).getKey()) || !Objects.equals(entry.getValue(), copies.get(i).getValue())
+                        || i < count - 1 && copies.get(i + 1) != entries.get(i + 1)) {
+                    break;
+                }
+                copies.set(i, entry);
+            }
+            for (int i = 0; i < count; i++) {
+                LinkedEntry<K, V> copy = copies.get(i);
+                if (i < count - 1 && copy != entries.get(i)) {
+                    copy.setSuccessor(copies.get(i + 1));
+                }
+                replayed.add(copy, readKeys == null ? entries.get(i).getKey() : readKeys.get(i),
+                        readValues == null ? entries.get(i).getValue() : readValues.get(i));
+            }
+        }
+
+        @Override
+        public void write(DataOutput out, ToIntFunction<V> sourceIds) throws IOException {
+            out.writeBoolean(true);
+            out.writeInt(count);
+        }
+
+        private void forEach(Consumer<LinkedEntry<K, V>> action) {
+            LinkedEntry<K, V> entry = first;
+            for (int i = 0; i < count; i++) {
+                action.accept(entry);
+                entry = entry.getSuccessor();
+            }
+        }
+    }
+
+    /**
+     * A source reread into a new source
+     */
+    static class Reload<K, V> {
+        private Source<K, V> source;
+        private Source<K, V> oldSource;
+        private Source<K, V> newSource;
+
+        Reload(Source<K, V> source, Source<K, V> newSource) {
+            this.source = source;
+            this.newSource = newSource;
+        }
+
+        /**
+         * @return The source before it is reloaded
+         */
+        Source<K, V> getOldSource() {
+            return oldSource;
+        }
+
+        Source<K, V> getNewSource() {
+            return newSource;
+        }
+
+        /**
+         * Replaces the parts of the source in the tree by the parts of the new source. The old source keeps the replaced parts
+         */
+        private void replace() {
+            oldSource = new Source<>(source.source, false);
+            oldSource.copy(source);
+            source.copy(newSource);
+        }
+    }
+
+    /**
+     * Adds the sources and the entries read by an iterator to a source
+     */
+    private static class Builder<K, V> implements IncludeListener<K, V> {
+        private List<Source<K, V>> sourceStack;
+        private boolean files;
+        private boolean asRead;
+        /**
+         * The first source opened. Null until a source is opened
+         */
+        private Source<K, V> firstSource;
+
+        Builder(Source<K, V> parent, boolean files, boolean asRead) {
+            sourceStack = new ArrayList<>();
+            sourceStack.add(parent);
+            this.files = files;
+            this.asRead = asRead;
+        }
+
+        @Override
+        public void opened(V source) {
+            Source<K, V> newSource = new Source<>(source, files);
+            if (firstSource == null) {
+                firstSource = newSource;
+            }
+            top().add(newSource);
+            sourceStack.add(newSource);
+        }
+
+        /**
+         * The entry is read before it is given to the entry consumers
+         */
+        @Override
+        public void read(LinkedEntry<K, V> entry) {
+            if (asRead) {
+                top().add(entry, entry.getKey(), entry.getValue());
+            } else {
+                top().add(entry);
+            }
+        }
+
+        @Override
+        public void closed(V source) {
+            sourceStack.remove(sourceStack.size() - 1);
+        }
+
+        private Source<K, V> top() {
+            return sourceStack.get(sourceStack.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package torsete.util.entry.util;
+
+import torsete.util.entry.LinkedEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The entries read from one source.
+ * <p>
+ * The entries may be iterated any number of times. Each iteration delivers new {@link LinkedEntry} objects,
+ * so the same source may be linked more than once.
+ */
+public class BufferedEntries<K, V> {
+    /**
+     * Identification of the source
+     */
+    private V source;
+    private List<LinkedEntry<K, V>> entries;
+
+    private BufferedEntries(V source, List<LinkedEntry<K, V>> entries) {
+        this.source = source;
+        this.entries = entries;
+    }
+
+    /**
+     * Reads and closes the iterator. Entry consumers of the iterator are not applied
+     */
+    public static <K, V> BufferedEntries<K, V> read(EntryIterator<K, V> iterator) {
+        List<LinkedEntry<K, V>> entries = new ArrayList<>();
+        try {
+            LinkedEntry<K, V> entry = iterator.readEntry();
+            while (entry != null) {
+                entries.add(entry);
+                entry = iterator.readEntry();
+            }
+        } finally {
+            iterator.close();
+        }
+        return new BufferedEntries<>(iterator.getSource(), entries);
+    }
+
+    /**
+     * @return No entries from the source
+     */
+    public static <K, V> BufferedEntries<K, V> empty(V source) {
+        return new BufferedEntries<>(source, new ArrayList<>());
+    }
+
+    public V getSource() {
+        return source;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Rough estimate of the heap used by the entries
+     */
+    public long estimateBytes() {
+        long bytes = 0;
+        for (LinkedEntry<K, V> entry : entries) {
+            bytes += 48 + estimateBytes(entry.getKey()) + estimateBytes(entry.getValue());
+        }
+        return bytes;
+    }
+
+    /**
+     * @return The values of the entries accepted by the predicate
+     */
+    public List<V> values(Predicate<LinkedEntry<K, V>> predicate) {
+        List<V> values = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            LinkedEntry<K, V> entry = newEntry(i);
+            if (predicate.test(entry)) {
+                values.add(entry.getValue());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return A new iterator of new entries
+     */
+    public EntryIterator<K, V> iterator() {
+        return new EntryIterator<K, V>() {
+            private int i;
+
+            @Override
+            protected LinkedEntry<K, V> readEntry() {
+                return i < entries.size() ? newEntry(i++) : null;
+            }
+        }.setSource(source);
+    }
+
+    private long estimateBytes(Object object) {
+        return object == null ? 0 : 40 + 2 * object.toString().length();
+    }
+
+    private LinkedEntry<K, V> newEntry(int i) {
+        LinkedEntry<K, V> entry = entries.get(i);
+        return new LinkedEntry<>(entry.getKey(), entry.getValue())
+                .setLineNumber(entry.getLineNumber())
+                .setSource(entry.getSource());
+    }
+}
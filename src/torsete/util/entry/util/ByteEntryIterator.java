@@ -0,0 +1,392 @@
+package torsete.util.entry.util;
+
+import torsete.util.entry.LinkedEntry;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Fetches input from bytes in an ASCII compatible charset.
+ * <p>
+ * The lines are found directly in the bytes and are joined like {@link ReaderEntryIterator} does.
+ * Blank lines and comments are skipped without being decoded. Only lines containing an entry are decoded.
+ * <p>
+ * The bytes of a line are copied as characters into the buffer of the lexer as long as they are ASCII, or always if the charset is ISO-8859-1.
+ * The decoder of the charset is only used from the first byte which is not ASCII.
+ * <p>
+ * The charset must encode line terminators, white space, backslash, '#' and '!' as the single ASCII bytes
+ * and never use these bytes inside a multi byte character. This holds for eg. UTF-8, ISO-8859-1 and US-ASCII.
+ * A charset which cannot encode must decode each byte by itself.
+ * <p>
+ * The bytes are held by a buffer, which a subclass may refill (see {@link #fill()}).
+ * <p>
+ * The parsing is recorded by a flight recorder event (see {@link SourceParseEvent}), when the event is enabled.
+ */
+public abstract class ByteEntryIterator<K, V> extends EntryIterator<K, V> {
+    /**
+     * Entry source
+     */
+    protected ByteBuffer buffer;
+    /**
+     * View of the buffer used when decoding
+     */
+    private ByteBuffer slice;
+    /**
+     * Start of the next line in the buffer
+     */
+    protected int position;
+    /**
+     * Current line number
+     */
+    private int nextLineNumber;
+    /**
+     * Byte ranges of the lines collected into one logical line
+     */
+    private int[] sliceStarts;
+    private int[] sliceEnds;
+    private int sliceCount;
+
+    private CharsetDecoder decoder;
+    /**
+     * True if every byte is a character of the same value
+     */
+    private boolean latin1;
+    /**
+     * The decoded logical line
+     */
+    private CharBuffer chars;
+    /**
+     * Parser of the decoded lines
+     */
+    private PropertiesLineLexer lexer;
+    /**
+     * Optional pool of keys, values and sources
+     */
+    private StringPool stringPool;
+    /**
+     * The source of the entries. Null until the first entry
+     */
+    private V entrySource;
+    /**
+     * Number of lines continued by the next line
+     */
+    private int continuationCount;
+    /**
+     * Null if the parse event is disabled, or the source is not read yet
+     */
+    private SourceParseEvent parseEvent;
+    /**
+     * True when the parse event is begun or found disabled
+     */
+    private boolean parseEventBegun;
+
+    protected ByteEntryIterator() {
+        sliceStarts = new int[4];
+        sliceEnds = new int[4];
+        chars = CharBuffer.allocate(256);
+        lexer = new PropertiesLineLexer();
+    }
+
+    /**
+     * Keys, values and the source are taken from the pool
+     *
+     * @param stringPool Null disables pooling
+     */
+    public ByteEntryIterator<K, V> setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+        lexer.setStringPool(stringPool);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException The charset is not ASCII compatible
+     */
+    protected void setCharset(Charset charset) {
+        if (!isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException(charset + " is not supported by a byte source");
+        }
+        decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @param buffer The bytes from position 0 to the limit
+     */
+    protected void setBuffer(ByteBuffer buffer) {
+        this.buffer = buffer;
+        slice = buffer.duplicate();
+    }
+
+    /**
+     * Makes more bytes available, eg. by reading them into the buffer. The bytes from {@link #position} are kept,
+     * but may be moved to another position
+     *
+     * @return False if there are no more bytes. Then the last line ends at the limit of the buffer
+     */
+    protected boolean fill() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        endParseEvent();
+        super.close();
+    }
+
+    @Override
+    protected LinkedEntry<K, V> readEntry() {
+        if (!parseEventBegun) {
+            parseEventBegun = true;
+            parseEvent = SourceParseEvent.begin(getSource());
+        }
+        if (parseEvent == null) {
+            return parseEntry();
+        }
+        long start = System.nanoTime();
+        LinkedEntry<K, V> entry = parseEntry();
+        parseEvent.read(entry != null, System.nanoTime() - start);
+        if (entry == null) {
+            endParseEvent();
+        }
+        return entry;
+    }
+
+    private LinkedEntry<K, V> parseEntry() {
+        while (position < buffer.limit() || fill()) {
+            int start = position;
+            int lineNumber = nextLineNumber;
+            if (!collectLine()) {
+                position = start;
+                nextLineNumber = lineNumber;
+                fill();
+                continue;
+            }
+            if (isEntry()) {
+                decode();
+                if (lexer.lex(chars)) {
+                    return new LinkedEntry<>((K) lexer.getKey(), (V) lexer.getValue()).setLineNumber(nextLineNumber - 1).setSource(entrySource());
+                }
+            }
+        }
+        return null;
+    }
+
+    private void endParseEvent() {
+        if (parseEvent != null) {
+            parseEvent.end(nextLineNumber, continuationCount);
+            parseEvent = null;
+        }
+    }
+
+    /**
+     * Collects the lines of a logical line
+     *
+     * @return False if the buffer ends within the logical line, and there may be more bytes
+     */
+    private boolean collectLine() {
+        int limit = buffer.limit();
+        sliceCount = 0;
+        boolean isContinued = true;
+        while (isContinued) {
+            if (position == limit) {
+                return isLast();
+            }
+            int start = position;
+            int end = endOfLine(start, limit);
+            if ((end == limit || end == limit - 1 && buffer.get(end) == '\r') && !isLast()) {
+                return false;
+            }
+            position = nextLine(end, limit);
+            nextLineNumber++;
+            start = trimLeft(start, end);
+            isContinued = end - start >= 1 && buffer.get(end - 1) == '\\' &&
+                    !(end - start >= 2 && buffer.get(end - 2) == '\\');
+            addSlice(start, isContinued ? end - 1 : end);
+        }
+        continuationCount += sliceCount - 1;
+        return true;
+    }
+
+    /**
+     * @return True if the buffer holds the last bytes
+     */
+    protected boolean isLast() {
+        return true;
+    }
+
+    /**
+     * @return False if the logical line is blank or a comment
+     */
+    private boolean isEntry() {
+        for (int i = 0; i < sliceCount; i++) {
+            for (int pos = sliceStarts[i]; pos < sliceEnds[i]; pos++) {
+                byte b = buffer.get(pos);
+                if (b != ' ' && b != '\t' && b != '\f') {
+                    return b != '#' && b != '!';
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decodes the logical line into the buffer of the lexer
+     */
+    private void decode() {
+        chars.clear();
+        for (int i = 0; i < sliceCount; i++) {
+            int start = sliceStarts[i];
+            int end = sliceEnds[i];
+            if (chars.remaining() < end - start) {
+                growChars(end - start);
+            }
+            char[] array = chars.array();
+            int n = chars.position();
+            int pos = start;
+            if (latin1) {
+                while (pos < end) {
+                    array[n++] = (char) (buffer.get(pos++) & 0xff);
+                }
+            } else {
+                byte b;
+                while (pos < end && (b = buffer.get(pos)) >= 0) {
+                    array[n++] = (char) b;
+                    pos++;
+                }
+            }
+            chars.position(n);
+            if (pos < end) {
+                decode(pos, end);
+            }
+        }
+        chars.flip();
+    }
+
+    /**
+     * Decodes bytes by the decoder of the charset
+     */
+    private void decode(int start, int end) {
+        slice.clear();
+        slice.limit(end);
+        slice.position(start);
+        decoder.reset();
+        CoderResult result = decoder.decode(slice, chars, true);
+        while (result.isOverflow()) {
+            growChars(end - slice.position());
+            result = decoder.decode(slice, chars, true);
+        }
+        result = decoder.flush(chars);
+        while (result.isOverflow()) {
+            growChars(1);
+            result = decoder.flush(chars);
+        }
+    }
+
+    /**
+     * @param count Number of characters to make room for
+     */
+    private void growChars(int count) {
+        CharBuffer newChars = CharBuffer.allocate(Math.max(chars.capacity() * 2, chars.position() + count));
+        chars.flip();
+        newChars.put(chars);
+        chars = newChars;
+    }
+
+    private void addSlice(int start, int end) {
+        if (sliceCount == sliceStarts.length) {
+            sliceStarts = Arrays.copyOf(sliceStarts, sliceCount * 2);
+            sliceEnds = Arrays.copyOf(sliceEnds, sliceCount * 2);
+        }
+        sliceStarts[sliceCount] = start;
+        sliceEnds[sliceCount] = end;
+        sliceCount++;
+    }
+
+    /**
+     * @return Position of the line terminator or the limit
+     */
+    private int endOfLine(int pos, int limit) {
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (b == '\n' || b == '\r') {
+                return pos;
+            }
+            pos++;
+        }
+        return limit;
+    }
+
+    /**
+     * A line is terminated by "\n", "\r" or "\r\n" as by {@link java.io.BufferedReader#readLine()}
+     *
+     * @return Position after the line terminator
+     */
+    private int nextLine(int end, int limit) {
+        if (end == limit) {
+            return limit;
+        }
+        if (buffer.get(end) == '\r' && end + 1 < limit && buffer.get(end + 1) == '\n') {
+            return end + 2;
+        }
+        return end + 1;
+    }
+
+    private int trimLeft(int start, int end) {
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8) ||
+                charset.equals(StandardCharsets.ISO_8859_1) ||
+                charset.equals(StandardCharsets.US_ASCII)) {
+            return true;
+        }
+        if (charset.canEncode()) {
+            return charset.newEncoder().maxBytesPerChar() == 1 &&
+                    Arrays.equals(" \t\f\r\n\\#!".getBytes(charset), " \t\f\r\n\\#!".getBytes(StandardCharsets.US_ASCII));
+        }
+        return isSingleByte(charset) &&
+                " \t\f\r\n\\#!".equals(new String(" \t\f\r\n\\#!".getBytes(StandardCharsets.US_ASCII), charset));
+    }
+
+    /**
+     * Checks a charset which may only decode
+     *
+     * @return True if each byte by itself is decoded into one character or is not valid, ie. no byte begins a sequence
+     */
+    private static boolean isSingleByte(Charset charset) {
+        CharsetDecoder decoder = charset.newDecoder();
+        CharBuffer out = CharBuffer.allocate(2);
+        for (int b = 0; b < 256; b++) {
+            decoder.reset();
+            out.clear();
+            CoderResult result = decoder.decode(ByteBuffer.wrap(new byte[]{(byte) b}), out, false);
+            if (!result.isError() && out.position() != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The source, from the string pool if there is one
+     */
+    private V entrySource() {
+        if (entrySource == null) {
+            V source = getSource();
+            entrySource = stringPool != null && source instanceof String ? (V) stringPool.intern((String) source) : source;
+        }
+        return entrySource;
+    }
+}
@@ -0,0 +1,57 @@
+package torsete.util.entry.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Flight recorder event of an entry consumer of an {@link EntryIterator}, from the first entry is consumed until the iterator
+ * is exhausted or closed. The consume time is the time spent by the consumer
+ */
+@Name("torsete.entry.Consumer")
+@Label("Entry Consumer")
+@Category({"Torsete", "Entries"})
+@Description("The entries of an iterator given to an entry consumer")
+class ConsumerEvent extends Event {
+    @Label("Consumer")
+    Class<?> consumer;
+
+    @Label("Source")
+    String source;
+
+    @Label("Consume Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long consumeTime;
+
+    @Label("Entries")
+    long entries;
+
+    /**
+     * @return An event of each consumer. Null if the event is disabled
+     */
+    static ConsumerEvent[] begin(List<? extends Consumer<?>> consumers, Object source) {
+        if (consumers.isEmpty() || !new ConsumerEvent().isEnabled()) {
+            return null;
+        }
+        ConsumerEvent[] events = new ConsumerEvent[consumers.size()];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new ConsumerEvent();
+            events[i].consumer = consumers.get(i).getClass();
+            events[i].source = source == null ? null : source.toString();
+            events[i].begin();
+        }
+        return events;
+    }
+
+    static void end(ConsumerEvent[] events) {
+        for (ConsumerEvent event : events) {
+            event.commit();
+        }
+    }
+}
@@ -2,11 +2,8 @@ package torsete.util.entry.util;
 
 import torsete.util.entry.LinkedEntry;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * Implements "dot notation" of keys
@@ -22,18 +19,52 @@ import java.util.stream.Collectors;
  * The key "..ddd" wil be replaced by "aaa.ccc.ddd"
  * The key ".eee" wil be replaced by "aaa.eee"
  *
+ * The previous key is held as characters and segment bounds in buffers, which are reused from key to key.
+ * Only the replacing key is allocated, and only if it differs from the key of the entry.
  */
 public class DottedEntryKeyConsumer<K, V> implements Consumer<LinkedEntry<K, V>> {
-    private String[] previousSplitKey;
-
     private char[] splitChars;
 
+    /**
+     * Characters of the previous key. Segments are trimmed and joined by '.'
+     */
+    private char[] previousKey;
+    /**
+     * Start and end (exclusive) of each segment of the previous key
+     */
+    private int[] previousBounds;
+    /**
+     * Number of segments of the previous key. Is -1 before the first entry
+     */
+    private int previousSegmentCount;
+
+    private char[] key;
+    private int[] bounds;
+
+    /**
+     * Optional pool of the replacing keys
+     */
+    private StringPool stringPool;
+
     public DottedEntryKeyConsumer() {
         this('.');
     }
 
     public DottedEntryKeyConsumer(char... splitChars) {
         this.splitChars = splitChars;
+        previousKey = new char[64];
+        previousBounds = new int[16];
+        previousSegmentCount = -1;
+        key = new char[64];
+        bounds = new int[16];
+    }
+
+    /**
+     * @param stringPool The replacing keys are taken from the pool. Null disables pooling
+     */
+    public DottedEntryKeyConsumer<K, V> setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+        return this;
     }
 
     /**
@@ -43,44 +74,96 @@ public class DottedEntryKeyConsumer<K, V> implements Consumer<LinkedEntry<K, V>>
      */
     @Override
     public void accept(LinkedEntry<K, V> linkedEntry) {
-        String[] splitKey = splitKey(linkedEntry).stream().map(s -> s.trim()).collect(Collectors.toList()).toArray(new String[0]);
-        if (previousSplitKey == null) {
-            previousSplitKey = splitKey;
+        Object originalKey = linkedEntry.getKey();
+        String s = originalKey.toString();
+        int length = 0;
+        int segmentCount = 0;
+        int segmentStart = 0;
+        for (int i = 0; i <= s.length(); i++) {
+            if (i < s.length() && !isSplitChar(s.charAt(i))) {
+                continue;
+            }
+            // Trim the segment as String.trim()
+            int start = segmentStart;
+            int end = i;
+            while (start < end && s.charAt(start) <= ' ') {
+                start++;
+            }
+            while (start < end && s.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (segmentCount > 0) {
+                ensureKeyCapacity(length + 1);
+                key[length++] = '.';
+            }
+            if (start == end && segmentCount < previousSegmentCount) {
+                int previousStart = previousBounds[2 * segmentCount];
+                int previousEnd = previousBounds[2 * segmentCount + 1];
+                ensureKeyCapacity(length + previousEnd - previousStart);
+                System.arraycopy(previousKey, previousStart, key, length, previousEnd - previousStart);
+                addBounds(segmentCount, length, length + previousEnd - previousStart);
+                length += previousEnd - previousStart;
+            } else {
+                ensureKeyCapacity(length + end - start);
+                s.getChars(start, end, key, length);
+                addBounds(segmentCount, length, length + end - start);
+                length += end - start;
+            }
+            segmentCount++;
+            segmentStart = i + 1;
+        }
+
+        boolean first = previousSegmentCount < 0;
+        swapBuffers(segmentCount);
+        if (first) {
             return;
         }
-        if (splitKey != null) {
-            for (int i = 0; i < splitKey.length; i++) {
-                if (splitKey[i].length() == 0) {
-                    if (i < previousSplitKey.length) {
-                        splitKey[i] = previousSplitKey[i];
-                    }
-                }
-            }
+        if (!(originalKey instanceof String) || !equals(s, length)) {
+            String newKey = stringPool == null ? new String(previousKey, 0, length) : stringPool.intern(previousKey, 0, length);
+            linkedEntry.replaceKey((K) newKey);
         }
+    }
 
-        // Compute new Map.Entry<Object,Object>:
-        K newKey = (K) Arrays.stream(splitKey).collect(Collectors.joining("."));
-        linkedEntry.replaceKey(newKey);
-        previousSplitKey = splitKey;
+    /**
+     * @return True if the string equals the previous key of the length
+     */
+    private boolean equals(String s, int length) {
+        if (s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != previousKey[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 
+    /**
+     * The key becomes the previous key
+     */
+    private void swapBuffers(int segmentCount) {
+        char[] chars = previousKey;
+        previousKey = key;
+        key = chars;
+        int[] ints = previousBounds;
+        previousBounds = bounds;
+        bounds = ints;
+        previousSegmentCount = segmentCount;
     }
 
-    private List<String> splitKey(LinkedEntry<K, V> entry) {
-        String key = entry.getKey().toString();
-        List<String> strings = new ArrayList<>();
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < key.length(); i++) {
-            char c = key.charAt(i);
-            if (isSplitChar(c)) {
-                strings.add(sb.toString());
-                sb = new StringBuilder();
-            } else {
-                sb.append(c);
-            }
+    private void addBounds(int segment, int start, int end) {
+        if (2 * segment + 1 >= bounds.length) {
+            bounds = Arrays.copyOf(bounds, 2 * bounds.length);
         }
+        bounds[2 * segment] = start;
+        bounds[2 * segment + 1] = end;
+    }
 
-        strings.add(sb.toString());
-        return strings;
+    private void ensureKeyCapacity(int capacity) {
+        if (capacity > key.length) {
+            key = Arrays.copyOf(key, Math.max(capacity, 2 * key.length));
+        }
     }
 
     private boolean isSplitChar(char c) {
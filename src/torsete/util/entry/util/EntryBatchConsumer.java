@@ -0,0 +1,63 @@
+package torsete.util.entry.util;
+
+import torsete.util.entry.LinkedEntry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An entry consumer processing the entries in batches.
+ * <p>
+ * An iterator with a batch consumer reads a batch of entries ahead and gives the batch to each of its consumers
+ * in the order they are added. A single entry consumer is given the entries of the batch one by one.
+ * So each consumer still sees all entries in order, but a consumer sees a batch before the next consumer sees it.
+ * <p>
+ * A batch consumer may be added as any entry consumer, eg. by {@link EntryIterator#addEntryConsumer(Consumer)}
+ */
+public interface EntryBatchConsumer<K, V> extends Consumer<LinkedEntry<K, V>> {
+    /**
+     * Maximum number of entries of a batch
+     */
+    int BATCH_SIZE = 256;
+
+    /**
+     * @param entries The entries in order. The list is only valid during the call
+     */
+    void acceptBatch(List<LinkedEntry<K, V>> entries);
+
+    /**
+     * Accepts one entry as a batch
+     */
+    @Override
+    default void accept(LinkedEntry<K, V> entry) {
+        acceptBatch(Collections.singletonList(entry));
+    }
+
+    /**
+     * @return True if one of the consumers is a batch consumer
+     */
+    static <K, V> boolean isBatching(List<Consumer<LinkedEntry<K, V>>> entryConsumers) {
+        for (Consumer<LinkedEntry<K, V>> entryConsumer : entryConsumers) {
+            if (entryConsumer instanceof EntryBatchConsumer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gives the entries to each consumer in turn
+     */
+    static <K, V> void acceptAll(List<Consumer<LinkedEntry<K, V>>> entryConsumers, List<LinkedEntry<K, V>> entries) {
+        for (Consumer<LinkedEntry<K, V>> entryConsumer : entryConsumers) {
+            if (entryConsumer instanceof EntryBatchConsumer) {
+                ((EntryBatchConsumer<K, V>) entryConsumer).acceptBatch(entries);
+            } else {
+                for (int i = 0; i < entries.size(); i++) {
+                    entryConsumer.accept(entries.get(i));
+                }
+            }
+        }
+    }
+}
@@ -9,6 +9,9 @@ import java.util.function.Consumer;
 
 /**
  * Provides iteration of entries.
+ * <p>
+ * The time spent by each entry consumer is recorded by a flight recorder event (see {@link ConsumerEvent}),
+ * when the event is enabled. Otherwise the consumers are not timed.
  */
 public abstract class EntryIterator<K, V> implements Iterator<LinkedEntry<K, V>> {
 
@@ -21,6 +24,27 @@ public abstract class EntryIterator<K, V> implements Iterator<LinkedEntry<K, V>>
     private V source;
 
     protected List<Consumer<LinkedEntry<K, V>>> entryConsumers;
+    /**
+     * True if the entries are consumed in batches (see {@link EntryBatchConsumer})
+     */
+    private boolean batching;
+    /**
+     * Entries read ahead and consumed. The next entry is at the batch position, unless the position is at the end
+     */
+    private List<LinkedEntry<K, V>> batch;
+    private int batchPosition;
+    /**
+     * True if the source is exhausted by the batch
+     */
+    private boolean batchExhausted;
+    /**
+     * Time spent by each consumer. Null if the consumer event is disabled, or the entries are not consumed yet
+     */
+    private ConsumerEvent[] consumerEvents;
+    /**
+     * True when the consumer events are begun or found disabled
+     */
+    private boolean consumerEventsBegun;
 
     public EntryIterator() {
         entryConsumers = new ArrayList<>();
@@ -30,10 +54,32 @@ public abstract class EntryIterator<K, V> implements Iterator<LinkedEntry<K, V>>
     @Override
     public LinkedEntry<K, V> next() {
         LinkedEntry<K, V> entry = nextEntry;
-        nextEntry = readEntry();
-        entryConsumers.forEach(ec -> ec.accept(entry));
+        if (!consumerEventsBegun && entry != null) {
+            consumerEventsBegun = true;
+            consumerEvents = ConsumerEvent.begin(entryConsumers, source);
+        }
+        if (batching && entry != null) {
+            if (batchPosition == batch.size()) {
+                consumeBatch(entry);
+            }
+            batchPosition++;
+            if (batchPosition < batch.size()) {
+                nextEntry = batch.get(batchPosition);
+            } else {
+                nextEntry = batchExhausted ? null : readEntry();
+            }
+        } else {
+            nextEntry = readEntry();
+            if (consumerEvents == null) {
+                entryConsumers.forEach(ec -> ec.accept(entry));
+            } else {
+                acceptTimed(entry);
+            }
+        }
         if (nextEntry != null) {
             lastEntry = nextEntry;
+        } else {
+            endConsumerEvents();
         }
         return entry;
     }
@@ -70,24 +116,93 @@ public abstract class EntryIterator<K, V> implements Iterator<LinkedEntry<K, V>>
         return lastEntry;
     }
 
+    /**
+     * Ends the recording of the consumers. Subclasses closing a source must call this
+     */
     public void close() {
+        endConsumerEvents();
     }
 
     protected abstract LinkedEntry<K, V> readEntry();
 
     protected EntryIterator<K, V> setEntryConsumers(List<Consumer<LinkedEntry<K, V>>> entryConsumers) {
         this.entryConsumers = entryConsumers;
+        setBatching();
         return this;
     }
 
+    /**
+     * @param entryConsumer If it is an {@link EntryBatchConsumer}, the entries are consumed in batches
+     */
     public EntryIterator<K, V> addEntryConsumer(Consumer<LinkedEntry<K, V>> entryConsumer) {
         entryConsumers.add(entryConsumer);
+        setBatching();
         return this;
     }
 
+    private void setBatching() {
+        batching = EntryBatchConsumer.isBatching(entryConsumers);
+        if (batching && batch == null) {
+            batch = new ArrayList<>(EntryBatchConsumer.BATCH_SIZE);
+        }
+    }
 
+    /**
+     * Reads a batch of entries starting with the entry, and gives the batch to the consumers
+     */
+    private void consumeBatch(LinkedEntry<K, V> entry) {
+        batch.clear();
+        batchPosition = 0;
+        LinkedEntry<K, V> batchEntry = entry;
+        while (batchEntry != null) {
+            batch.add(batchEntry);
+            if (batch.size() == EntryBatchConsumer.BATCH_SIZE) {
+                break;
+            }
+            batchEntry = readEntry();
+        }
+        batchExhausted = batchEntry == null;
+        if (consumerEvents == null) {
+            EntryBatchConsumer.acceptAll(entryConsumers, batch);
+            return;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < entryConsumers.size(); i++) {
+            EntryBatchConsumer.acceptAll(entryConsumers.subList(i, i + 1), batch);
+            start = consumed(i, batch.size(), start);
+        }
+    }
 
+    /**
+     * Gives the entry to each consumer in turn, and records the time spent by each
+     */
+    private void acceptTimed(LinkedEntry<K, V> entry) {
+        long start = System.nanoTime();
+        for (int i = 0; i < entryConsumers.size(); i++) {
+            entryConsumers.get(i).accept(entry);
+            start = consumed(i, 1, start);
+        }
+    }
 
+    /**
+     * Records entries consumed by a consumer
+     *
+     * @param start Time the consumer started
+     * @return Time the consumer ended
+     */
+    private long consumed(int consumer, int entries, long start) {
+        long end = System.nanoTime();
+        if (consumer < consumerEvents.length) {
+            consumerEvents[consumer].consumeTime += end - start;
+            consumerEvents[consumer].entries += entries;
+        }
+        return end;
+    }
 
-
+    private void endConsumerEvents() {
+        if (consumerEvents != null) {
+            ConsumerEvent.end(consumerEvents);
+            consumerEvents = null;
+        }
+    }
 }
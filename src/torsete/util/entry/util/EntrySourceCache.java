@@ -0,0 +1,113 @@
+package torsete.util.entry.util;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache of the entries read from files. The cache may be shared by several loads and by several threads.
+ * <p>
+ * A file is identified by its absolute path. A cached file is read again if its length or its last modified time has changed.
+ * The least recently used files are evicted when there are more than a maximum number of files,
+ * or when the estimated size of the cached entries exceeds a maximum number of bytes.
+ * <p>
+ * Note. The cache should only be shared by loads reading the files in the same way (eg. with the same charset)
+ */
+public class EntrySourceCache<K, V> {
+    private int maxSources;
+    private long maxBytes;
+    /**
+     * Cached files by absolute path in least recently used order
+     */
+    private LinkedHashMap<String, CachedSource<K, V>> sources;
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @param maxSources Maximum number of cached files
+     * @param maxBytes   Maximum estimated size of the cached entries
+     */
+    public EntrySourceCache(int maxSources, long maxBytes) {
+        this.maxSources = maxSources;
+        this.maxBytes = maxBytes;
+        sources = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @param reader Creates an iterator reading the file. It is called if the file is not cached or if it has changed
+     * @return The entries of the file
+     */
+    public BufferedEntries<K, V> read(File file, Function<File, EntryIterator<K, V>> reader) {
+        String path = file.getAbsolutePath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        synchronized (this) {
+            CachedSource<K, V> cachedSource = sources.get(path);
+            if (cachedSource != null && cachedSource.length == length && cachedSource.lastModified == lastModified) {
+                hitCount++;
+                return cachedSource.entries;
+            }
+            missCount++;
+        }
+        BufferedEntries<K, V> entries = BufferedEntries.read(reader.apply(file));
+        put(path, new CachedSource<>(entries, length, lastModified));
+        return entries;
+    }
+
+    public synchronized void clear() {
+        sources.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return Number of cached files
+     */
+    public synchronized int size() {
+        return sources.size();
+    }
+
+    /**
+     * @return Estimated size of the cached entries
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private synchronized void put(String path, CachedSource<K, V> cachedSource) {
+        CachedSource<K, V> replacedSource = sources.put(path, cachedSource);
+        if (replacedSource != null) {
+            bytes -= replacedSource.bytes;
+        }
+        bytes += cachedSource.bytes;
+        Iterator<Map.Entry<String, CachedSource<K, V>>> iterator = sources.entrySet().iterator();
+        while (iterator.hasNext() && (sources.size() > maxSources || bytes > maxBytes)) {
+            bytes -= iterator.next().getValue().bytes;
+            iterator.remove();
+        }
+    }
+
+    private static class CachedSource<K, V> {
+        private BufferedEntries<K, V> entries;
+        private long length;
+        private long lastModified;
+        private long bytes;
+
+        CachedSource(BufferedEntries<K, V> entries, long length, long lastModified) {
+            this.entries = entries;
+            this.length = length;
+            this.lastModified = lastModified;
+            bytes = entries.estimateBytes();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package torsete.util.entry.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.io.File;
+
+/**
+ * Flight recorder event of a source read by {@link IncludingEntryIterator}, from the source is opened until it is closed.
+ * The duration includes the sources it includes
+ */
+@Name("torsete.entry.Include")
+@Label("Include")
+@Category({"Torsete", "Entries"})
+@Description("A source from it is opened until it is closed")
+class IncludeEvent extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Including Source")
+    String parentSource;
+
+    @Label("Depth")
+    @Description("Number of including sources")
+    int depth;
+
+    @Label("Entries")
+    @Description("Number of entries read from the source itself")
+    long entries;
+
+    @Label("Size")
+    @Description("Length of the file of the source. 0 if the source is not a file")
+    @DataAmount
+    long bytes;
+
+    /**
+     * @return Null if the event is disabled
+     */
+    static IncludeEvent begin(Object source, Object parentSource, int depth) {
+        IncludeEvent event = new IncludeEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.source = source == null ? null : source.toString();
+        event.parentSource = parentSource == null ? null : parentSource.toString();
+        event.depth = depth;
+        event.bytes = source == null ? 0 : new File(source.toString()).length();
+        event.begin();
+        return event;
+    }
+}
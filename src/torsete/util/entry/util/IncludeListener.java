@@ -0,0 +1,23 @@
+package torsete.util.entry.util;
+
+import torsete.util.entry.LinkedEntry;
+
+/**
+ * Follows the structure of the sources read by an {@link IncludingEntryIterator}.
+ * <p>
+ * The calls are nested: A source is opened, its entries are read, and it is closed.
+ * An included source is opened and closed between the entries of the including source.
+ */
+public interface IncludeListener<K, V> {
+    /**
+     * @param source Null if the source is not identified
+     */
+    void opened(V source);
+
+    /**
+     * @param entry Is read from the latest opened source, which is not closed
+     */
+    void read(LinkedEntry<K, V> entry);
+
+    void closed(V source);
+}
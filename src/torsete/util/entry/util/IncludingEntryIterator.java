@@ -3,22 +3,54 @@ package torsete.util.entry.util;
 import torsete.util.entry.LinkedEntry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
-
+/**
+ * Iterates the entries of a source and the sources it includes.
+ * <p>
+ * Each source is recorded by a flight recorder event from it is opened until it is closed (see {@link IncludeEvent}),
+ * when the event is enabled.
+ */
 public class IncludingEntryIterator<K, V> extends EntryIterator<K, V> {
     private OrderedEntryIteratorStack<K, V> iteratorStack;
     private Predicate<LinkedEntry<K, V>> includePredicate;
     private BiFunction<V, V, EntryIterator<K, V>> sourceFactoryFunction;
     private List<EntryIterator<K, V>> toBeClosedIterators;
+    /**
+     * Optional reading of sources ahead. Null if a source is read when it is included
+     */
+    private Executor prefetchExecutor;
+    /**
+     * Sources read ahead. The key is the including source and the included source
+     */
+    private ConcurrentHashMap<List<V>, FutureTask<BufferedEntries<K, V>>> prefetchedSources;
+    /**
+     * Optional follower of the structure of the sources
+     */
+    private IncludeListener<K, V> includeListener;
+    /**
+     * Event of each source of the iterator stack. An event is null if the event is disabled
+     */
+    private List<IncludeEvent> includeEvents;
+    /**
+     * Event of the source on top of the stack. Null if the event is disabled
+     */
+    private IncludeEvent includeEvent;
 
     public IncludingEntryIterator() {
         iteratorStack = new OrderedEntryIteratorStack<>();
         toBeClosedIterators = new ArrayList<>();
+        prefetchedSources = new ConcurrentHashMap<>();
+        includeEvents = new ArrayList<>();
     }
 
     public IncludingEntryIterator<K, V> setSourceFactoryFunction(BiFunction<V, V, EntryIterator<K, V>> sourceFactoryFunction) {
@@ -31,8 +63,37 @@ public class IncludingEntryIterator<K, V> extends EntryIterator<K, V> {
         return this;
     }
 
+    /**
+     * Enables reading of sources ahead.
+     * <p>
+     * A source is read by the executor. When it is read, the sources it includes are submitted to the executor.
+     * The entries are still delivered in the same order, and a self referencing source is still reported when it is included.
+     * <p>
+     * Note. The source factory function and the include predicate are called by the executor threads
+     *
+     * @param prefetchExecutor Null disables reading ahead
+     */
+    public IncludingEntryIterator<K, V> setPrefetchExecutor(Executor prefetchExecutor) {
+        this.prefetchExecutor = prefetchExecutor;
+        return this;
+    }
+
+    /**
+     * @param includeListener Null if the structure is not followed
+     */
+    public IncludingEntryIterator<K, V> setIncludeListener(IncludeListener<K, V> includeListener) {
+        this.includeListener = includeListener;
+        return this;
+    }
+
     public void close() {
         toBeClosedIterators.forEach(i -> i.close());
+        prefetchedSources.values().forEach(task -> task.cancel(true));
+        while (!iteratorStack.empty()) {
+            iteratorStack.pop().close();
+            endIncludeEvent();
+        }
+        super.close();
     }
 
     public EntryIterator<K, V> open() {
@@ -40,6 +101,46 @@ public class IncludingEntryIterator<K, V> extends EntryIterator<K, V> {
     }
 
     public EntryIterator<K, V> open(V source) {
+        push(source);
+        super.open();
+        return this;
+    }
+
+    @Override
+    protected LinkedEntry<K, V> readEntry() {
+        while (true) {
+            LinkedEntry<K, V> entry = iteratorStack.top().readEntry();
+            while (entry == null) {
+                toBeClosedIterators.add(iteratorStack.top());
+                EntryIterator<K, V> closedIterator = iteratorStack.pop();
+                endIncludeEvent();
+                if (includeListener != null) {
+                    includeListener.closed(closedIterator.getSource());
+                }
+                if (iteratorStack.empty()) {
+                    return null;
+                } else {
+                    entry = iteratorStack.top().readEntry();
+                }
+            }
+            if (!includePredicate.test(entry)) {
+                if (includeListener != null) {
+                    includeListener.read(entry);
+                }
+                if (includeEvent != null) {
+                    includeEvent.entries++;
+                }
+                return entry;
+            }
+            push(entry.getValue());
+        }
+    }
+
+    /**
+     * Pushes an iterator of the source. The iterator delivers the next entries
+     */
+    private void push(V source) {
+        V parentSource = iteratorStack.empty() ? null : iteratorStack.top().getSource();
         EntryIterator<K, V> iterator = newOrderedEntryIterator(source);
 
         final V newSource = iterator.getSource();
@@ -52,40 +153,84 @@ public class IncludingEntryIterator<K, V> extends EntryIterator<K, V> {
         }
 
         iteratorStack.push(iterator);
-        super.open();
-        return this;
+        includeEvent = IncludeEvent.begin(newSource, parentSource, includeEvents.size());
+        includeEvents.add(includeEvent);
+        if (includeListener != null) {
+            includeListener.opened(newSource);
+        }
     }
 
-    @Override
-    protected LinkedEntry<K, V> readEntry() {
-        LinkedEntry<K, V> entry = iteratorStack.top().readEntry();
-        while (entry == null) {
-            toBeClosedIterators.add(iteratorStack.top());
-            iteratorStack.pop();
-            if (iteratorStack.empty()) {
-                return null;
-            } else {
-                entry = iteratorStack.top().readEntry();
-            }
-        }
-        if (includePredicate.test(entry)) {
-            open(entry.getValue());
-            return iteratorStack.top().nextEntry;
+    /**
+     * Ends the event of the source popped from the stack
+     */
+    private void endIncludeEvent() {
+        IncludeEvent event = includeEvents.remove(includeEvents.size() - 1);
+        if (event != null) {
+            event.commit();
         }
-        return entry;
+        includeEvent = includeEvents.isEmpty() ? null : includeEvents.get(includeEvents.size() - 1);
     }
 
     private EntryIterator<K, V> newOrderedEntryIterator(V source) {
+        V parentSource = iteratorStack.empty() ? null : iteratorStack.top().getSource();
         EntryIterator<K, V> iterator;
-        if (iteratorStack.empty()) {
-            iterator = sourceFactoryFunction.apply(null, source);
+        if (prefetchExecutor == null) {
+            iterator = sourceFactoryFunction.apply(parentSource, source);
         } else {
-            iterator = sourceFactoryFunction.apply(iteratorStack.top().getSource(), source);
+            iterator = getPrefetched(parentSource, source).iterator();
         }
         return iterator.setEntryConsumers(entryConsumers);
 
     }
 
+    /**
+     * Waits for a source to be read ahead. An exception from reading the source is thrown here
+     */
+    private BufferedEntries<K, V> getPrefetched(V parentSource, V source) {
+        try {
+            return prefetch(parentSource, source).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Submits reading of a source unless it is already submitted
+     */
+    private FutureTask<BufferedEntries<K, V>> prefetch(V parentSource, V source) {
+        List<V> key = Arrays.asList(parentSource, source);
+        FutureTask<BufferedEntries<K, V>> task = prefetchedSources.get(key);
+        if (task != null) {
+            return task;
+        }
+        task = new FutureTask<>(() -> read(parentSource, source));
+        FutureTask<BufferedEntries<K, V>> submittedTask = prefetchedSources.putIfAbsent(key, task);
+        if (submittedTask != null) {
+            return submittedTask;
+        }
+        prefetchExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * Reads a source and submits reading of the sources it includes
+     */
+    private BufferedEntries<K, V> read(V parentSource, V source) {
+        BufferedEntries<K, V> entries = BufferedEntries.read(sourceFactoryFunction.apply(parentSource, source));
+        entries.values(includePredicate).forEach(includedSource -> prefetch(entries.getSource(), includedSource));
+        return entries;
+    }
+
     class OrderedEntryIteratorStack<K, V> {
         private List<EntryIterator<K, V>> iterators;
 
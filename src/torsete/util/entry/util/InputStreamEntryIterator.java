@@ -0,0 +1,105 @@
+package torsete.util.entry.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Fetches input from an {@link InputStream} in a given charset.
+ * <p>
+ * The bytes are read into a buffer, where the lines are found and decoded as by {@link ByteEntryIterator}.
+ * So ASCII and ISO-8859-1 bytes are copied as characters into the buffer of the lexer without a {@link java.io.Reader}
+ * and without a string per line. The buffer grows if a logical line does not fit.
+ */
+public class InputStreamEntryIterator<K, V> extends ByteEntryIterator<K, V> {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 13;
+
+    /**
+     * Entry source
+     */
+    private InputStream inputStream;
+    private byte[] bytes;
+    /**
+     * True when the input stream is read to the end
+     */
+    private boolean eof;
+
+    public InputStreamEntryIterator() {
+        bytes = new byte[DEFAULT_BUFFER_SIZE];
+        setBuffer(ByteBuffer.wrap(bytes, 0, 0));
+    }
+
+    /**
+     * Keys, values and the source are taken from the pool
+     *
+     * @param stringPool Null disables pooling
+     */
+    @Override
+    public InputStreamEntryIterator<K, V> setStringPool(StringPool stringPool) {
+        super.setStringPool(stringPool);
+        return this;
+    }
+
+    /**
+     * @param charset Must be ASCII compatible (see {@link ByteEntryIterator})
+     * @throws IllegalArgumentException The charset is not ASCII compatible
+     */
+    public InputStreamEntryIterator<K, V> setInputStream(InputStream inputStream, Charset charset) {
+        setCharset(charset);
+        this.inputStream = inputStream;
+        return this;
+    }
+
+    /**
+     * @param bufferSize Initial size of the buffer
+     */
+    public InputStreamEntryIterator<K, V> setBufferSize(int bufferSize) {
+        bytes = new byte[bufferSize];
+        setBuffer(ByteBuffer.wrap(bytes, 0, 0));
+        return this;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Moves the bytes not yet read to the start of the buffer, and reads more bytes after them.
+     * The buffer grows if it is full of bytes not yet read
+     */
+    @Override
+    protected boolean fill() {
+        if (eof) {
+            return false;
+        }
+        int remaining = buffer.limit() - position;
+        if (position > 0) {
+            System.arraycopy(bytes, position, bytes, 0, remaining);
+        } else if (remaining == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        position = 0;
+        int count;
+        try {
+            count = inputStream.read(bytes, remaining, bytes.length - remaining);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        eof = count < 0;
+        setBuffer(ByteBuffer.wrap(bytes, 0, remaining + Math.max(count, 0)));
+        return remaining > 0 || count > 0;
+    }
+
+    @Override
+    protected boolean isLast() {
+        return eof;
+    }
+}
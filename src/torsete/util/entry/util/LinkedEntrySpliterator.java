@@ -0,0 +1,98 @@
+package torsete.util.entry.util;
+
+import torsete.util.entry.LinkedEntry;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Splittable traversal of a linked list of {@link LinkedEntry <K, V>}.
+ * <p>
+ * The number of entries is given, so entries appended to the list later on are not traversed.
+ * A split copies a batch of entries into an array. The batch grows by each split
+ * (as by {@link java.util.LinkedList#spliterator()}), so the work can be spread over a fork-join pool.
+ */
+public class LinkedEntrySpliterator<K, V> implements Spliterator<LinkedEntry<K, V>> {
+    /**
+     * Batch size increment
+     */
+    private static final int BATCH_UNIT = 1 << 10;
+    /**
+     * Largest batch
+     */
+    private static final int MAX_BATCH = 1 << 25;
+
+    private LinkedEntry<K, V> currentEntry;
+    /**
+     * Number of entries left
+     */
+    private long remaining;
+    /**
+     * Size of the latest batch
+     */
+    private int batch;
+
+    /**
+     * @param firstEntry First entry to traverse
+     * @param size       Number of entries to traverse
+     */
+    public LinkedEntrySpliterator(LinkedEntry<K, V> firstEntry, long size) {
+        currentEntry = firstEntry;
+        remaining = firstEntry == null ? 0 : size;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super LinkedEntry<K, V>> action) {
+        if (remaining <= 0 || currentEntry == null) {
+            return false;
+        }
+        LinkedEntry<K, V> entry = currentEntry;
+        currentEntry = entry.getSuccessor();
+        remaining--;
+        action.accept(entry);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super LinkedEntry<K, V>> action) {
+        LinkedEntry<K, V> entry = currentEntry;
+        long count = remaining;
+        currentEntry = null;
+        remaining = 0;
+        while (count > 0 && entry != null) {
+            action.accept(entry);
+            entry = entry.getSuccessor();
+            count--;
+        }
+    }
+
+    @Override
+    public Spliterator<LinkedEntry<K, V>> trySplit() {
+        if (remaining <= 1 || currentEntry == null) {
+            return null;
+        }
+        int n = (int) Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+        Object[] entries = new Object[n];
+        int j = 0;
+        LinkedEntry<K, V> entry = currentEntry;
+        while (j < n && entry != null) {
+            entries[j++] = entry;
+            entry = entry.getSuccessor();
+        }
+        currentEntry = entry;
+        remaining = entry == null ? 0 : remaining - j;
+        batch = j;
+        return Spliterators.spliterator(entries, 0, j, ORDERED | NONNULL);
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | SIZED | SUBSIZED;
+    }
+}
@@ -0,0 +1,45 @@
+package torsete.util.entry.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Fetches input from a memory mapped file.
+ * <p>
+ * The lines are found directly in the mapped bytes, and only lines containing an entry are decoded (see {@link ByteEntryIterator}).
+ */
+public class MappedEntryIterator<K, V> extends ByteEntryIterator<K, V> {
+
+    /**
+     * Keys, values and the source are taken from the pool
+     *
+     * @param stringPool Null disables pooling
+     */
+    @Override
+    public MappedEntryIterator<K, V> setStringPool(StringPool stringPool) {
+        super.setStringPool(stringPool);
+        return this;
+    }
+
+    /**
+     * Maps the file. The file is not kept open
+     *
+     * @throws java.io.FileNotFoundException If the file does not exist
+     * @throws IllegalArgumentException      The charset is not ASCII compatible
+     */
+    public MappedEntryIterator<K, V> setFile(File file, Charset charset) throws IOException {
+        setCharset(charset);
+        try (FileInputStream inputStream = new FileInputStream(file);
+             FileChannel channel = inputStream.getChannel()) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(file + " is too large to be memory mapped");
+            }
+            setBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+        return this;
+    }
+}
@@ -0,0 +1,202 @@
+package torsete.util.entry.util;
+
+/**
+ * Extracts a key and a value from one logical line formatted as a {@link java.util.Properties} file.
+ * <p>
+ * The result is the same as loading the line by {@link java.util.Properties#load(java.io.Reader)}:
+ * <ul>
+ * <li>Leading white space (' ', '\t' and '\f') is skipped</li>
+ * <li>Blank lines and lines beginning with '#' or '!' are comments</li>
+ * <li>The key is terminated by the first unescaped '=', ':' or white space</li>
+ * <li>The escapes \t, \n, \r, \f and \\uxxxx are converted. Any other escaped character is the character itself</li>
+ * <li>A trailing unpaired backslash is ignored</li>
+ * </ul>
+ * The line is scanned once and the key and value are collected in a reused buffer.
+ * Continuation lines are expected to be joined by the caller.
+ */
+public class PropertiesLineLexer {
+    private StringBuilder buffer;
+    private String key;
+    private String value;
+    /**
+     * Optional pool of keys and values
+     */
+    private StringPool stringPool;
+
+    public PropertiesLineLexer() {
+        buffer = new StringBuilder();
+    }
+
+    /**
+     * @param stringPool Keys and values are taken from the pool. Null disables pooling
+     */
+    public PropertiesLineLexer setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+        return this;
+    }
+
+    /**
+     * @return True if the line contains an entry. False if the line is blank or a comment
+     */
+    public boolean lex(CharSequence line) {
+        return lex(line, 0, line.length());
+    }
+
+    /**
+     * @param start First character of the line
+     * @param end   Position after the last character of the line
+     * @return True if the line contains an entry. False if the line is blank or a comment
+     * @throws IllegalArgumentException If the line contains a malformed \\uxxxx escape
+     */
+    public boolean lex(CharSequence line, int start, int end) {
+        key = null;
+        value = null;
+        int pos = skipWhiteSpace(line, start, end);
+        if (pos == end) {
+            return false;
+        }
+        char c = line.charAt(pos);
+        if (c == '#' || c == '!') {
+            return false;
+        }
+        end = trailingBackslashEnd(line, pos, end);
+
+        buffer.setLength(0);
+        boolean hasSeparator = false;
+        while (pos < end) {
+            c = line.charAt(pos++);
+            if (c == '\\') {
+                pos = appendEscape(line, pos, end);
+            } else if (c == '=' || c == ':') {
+                hasSeparator = true;
+                break;
+            } else if (isWhiteSpace(c)) {
+                break;
+            } else {
+                buffer.append(c);
+            }
+        }
+        key = toString(buffer);
+
+        while (pos < end) {
+            c = line.charAt(pos);
+            if (!isWhiteSpace(c)) {
+                if (!hasSeparator && (c == '=' || c == ':')) {
+                    hasSeparator = true;
+                } else {
+                    break;
+                }
+            }
+            pos++;
+        }
+
+        buffer.setLength(0);
+        while (pos < end) {
+            c = line.charAt(pos++);
+            if (c == '\\') {
+                pos = appendEscape(line, pos, end);
+            } else {
+                buffer.append(c);
+            }
+        }
+        value = toString(buffer);
+        return true;
+    }
+
+    private String toString(StringBuilder sb) {
+        return stringPool == null ? sb.toString() : stringPool.intern(sb);
+    }
+
+    /**
+     * @return Null if the latest line did not contain an entry
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return Null if the latest line did not contain an entry
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Converts the escape following a backslash
+     *
+     * @param pos Position after the backslash
+     * @return Position after the escape
+     */
+    private int appendEscape(CharSequence line, int pos, int end) {
+        char c = line.charAt(pos++);
+        switch (c) {
+            case 'u':
+                if (pos + 4 > end) {
+                    throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                }
+                int unicode = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = hexDigit(line.charAt(pos++));
+                    if (digit < 0) {
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                    }
+                    unicode = (unicode << 4) + digit;
+                }
+                buffer.append((char) unicode);
+                break;
+            case 't':
+                buffer.append('\t');
+                break;
+            case 'r':
+                buffer.append('\r');
+                break;
+            case 'n':
+                buffer.append('\n');
+                break;
+            case 'f':
+                buffer.append('\f');
+                break;
+            default:
+                buffer.append(c);
+                break;
+        }
+        return pos;
+    }
+
+    /**
+     * An odd number of trailing backslashes ends with a continuation which is dropped
+     *
+     * @return The end of the line without a dangling continuation backslash
+     */
+    private int trailingBackslashEnd(CharSequence line, int start, int end) {
+        int pos = end;
+        while (pos > start && line.charAt(pos - 1) == '\\') {
+            pos--;
+        }
+        return (end - pos) % 2 == 1 ? end - 1 : end;
+    }
+
+    private int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private int skipWhiteSpace(CharSequence line, int pos, int end) {
+        while (pos < end && isWhiteSpace(line.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private boolean isWhiteSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+}
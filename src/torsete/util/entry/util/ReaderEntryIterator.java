@@ -5,13 +5,11 @@ import torsete.util.entry.LinkedEntry;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Properties;
 
 /**
  * Fetches input from a Reader.
+ * <p>
+ * The parsing is recorded by a flight recorder event (see {@link SourceParseEvent}), when the event is enabled.
  */
 public class ReaderEntryIterator<K, V> extends EntryIterator<K, V> {
 
@@ -23,6 +21,50 @@ public class ReaderEntryIterator<K, V> extends EntryIterator<K, V> {
      * Current line number defined by the BufferedReader
      */
     private int nextLineNumber;
+    /**
+     * Parser of the collected lines
+     */
+    private PropertiesLineLexer lexer;
+    /**
+     * Optional pool of keys, values and sources
+     */
+    private StringPool stringPool;
+    /**
+     * The source of the entries. Null until the first entry
+     */
+    private V entrySource;
+    /**
+     * The lines of an entry. Reused from entry to entry
+     */
+    private StringBuilder collectedLine;
+    /**
+     * Number of lines continued by the next line
+     */
+    private int continuationCount;
+    /**
+     * Null if the parse event is disabled, or the source is not read yet
+     */
+    private SourceParseEvent parseEvent;
+    /**
+     * True when the parse event is begun or found disabled
+     */
+    private boolean parseEventBegun;
+
+    public ReaderEntryIterator() {
+        lexer = new PropertiesLineLexer();
+        collectedLine = new StringBuilder();
+    }
+
+    /**
+     * Keys, values and the source are taken from the pool
+     *
+     * @param stringPool Null disables pooling
+     */
+    public ReaderEntryIterator<K, V> setStringPool(StringPool stringPool) {
+        this.stringPool = stringPool;
+        lexer.setStringPool(stringPool);
+        return this;
+    }
 
     public ReaderEntryIterator<K, V> setReader(Reader reader) {
         this.bufferedReader = new BufferedReader(reader);
@@ -31,6 +73,8 @@ public class ReaderEntryIterator<K, V> extends EntryIterator<K, V> {
 
     @Override
     public void close() {
+        endParseEvent();
+        super.close();
         try {
             bufferedReader.close();
         } catch (IOException e) {
@@ -40,23 +84,40 @@ public class ReaderEntryIterator<K, V> extends EntryIterator<K, V> {
 
     @Override
     protected LinkedEntry<K, V> readEntry() {
+        if (!parseEventBegun) {
+            parseEventBegun = true;
+            parseEvent = SourceParseEvent.begin(getSource());
+        }
+        if (parseEvent == null) {
+            return parseEntry();
+        }
+        long start = System.nanoTime();
+        LinkedEntry<K, V> entry = parseEntry();
+        parseEvent.read(entry != null, System.nanoTime() - start);
+        if (entry == null) {
+            endParseEvent();
+        }
+        return entry;
+    }
+
+    private LinkedEntry<K, V> parseEntry() {
         String line = readLine();
         while (line != null) {
-            String collectedLine = "";
+            collectedLine.setLength(0);
             while (line != null) {
                 nextLineNumber++;
-                line = trimLeft(line);
+                int start = trimLeft(line);
                 if (line.endsWith("\\") && !line.endsWith("\\\\")) {
-                    collectedLine += line.substring(0, line.length() - 1);
+                    continuationCount++;
+                    collectedLine.append(line, start, line.length() - 1);
                     line = readLine();
                 } else {
-                    collectedLine += line;
+                    collectedLine.append(line, start, line.length());
                     line = null;
                 }
             }
-            Map.Entry<K, V> entry = fetchEntry(collectedLine);
-            if (entry != null) {
-                return new LinkedEntry(entry).setLineNumber(nextLineNumber - 1).setSource(getSource());
+            if (lexer.lex(collectedLine)) {
+                return new LinkedEntry<>((K) lexer.getKey(), (V) lexer.getValue()).setLineNumber(nextLineNumber - 1).setSource(entrySource());
             }
             line = readLine();
         }
@@ -64,16 +125,22 @@ public class ReaderEntryIterator<K, V> extends EntryIterator<K, V> {
     }
 
 
-    private String trimLeft(String string) {
-        int pos = string.length();
-        for (int i = 0; i < string.length(); i++) {
-            char c = string.charAt(i);
-            if (c != ' ') {
-                pos = i;
-                break;
-            }
+    /**
+     * @return Index of the first character which is not a space
+     */
+    private int trimLeft(String string) {
+        int pos = 0;
+        while (pos < string.length() && string.charAt(pos) == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private void endParseEvent() {
+        if (parseEvent != null) {
+            parseEvent.end(nextLineNumber, continuationCount);
+            parseEvent = null;
         }
-        return string.substring(pos);
     }
 
     private String readLine() {
@@ -85,29 +152,13 @@ public class ReaderEntryIterator<K, V> extends EntryIterator<K, V> {
     }
 
     /**
-     * Ectracts an entry from a string which may contain en entry
-     *
-     * @param keyPrefix If not null this value will be appended as key prefix
-     * @return Null if the input line does not contain a full entry
+     * @return The source, from the string pool if there is one
      */
-    private Map.Entry<K, V> fetchEntry(String string) {
-        Properties properties = new Properties();  // To be used as parser
-        StringReader stringReader = new StringReader(string);
-        try {
-            properties.load(stringReader);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        if (properties.size() == 0) {
-            return null;
+    private V entrySource() {
+        if (entrySource == null) {
+            V source = getSource();
+            entrySource = stringPool != null && source instanceof String ? (V) stringPool.intern((String) source) : source;
         }
-        Map.Entry<Object, Object> entry = properties.entrySet().iterator().next();
-        K key = (K) entry.getKey();
-        V value = (V) entry.getValue();
-
-        Map<K, V> map = new HashMap<>();
-        map.put(key, value);
-        return map.entrySet().iterator().next();
+        return entrySource;
     }
-
 }
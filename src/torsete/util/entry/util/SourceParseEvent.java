@@ -0,0 +1,67 @@
+package torsete.util.entry.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of the parsing of one source by {@link ReaderEntryIterator} or {@link ByteEntryIterator},
+ * from the first entry is read until the source is exhausted or closed.
+ * <p>
+ * The duration includes the time the entries are processed between the reads. The parse time is the time spent reading
+ */
+@Name("torsete.entry.SourceParse")
+@Label("Source Parse")
+@Category({"Torsete", "Entries"})
+@Description("Parsing of the entries of one source")
+class SourceParseEvent extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long parseTime;
+
+    @Label("Lines")
+    int lines;
+
+    @Label("Continuation Lines")
+    @Description("Number of lines continued by the next line")
+    int continuations;
+
+    @Label("Entries")
+    int entries;
+
+    /**
+     * @return Null if the event is disabled
+     */
+    static SourceParseEvent begin(Object source) {
+        SourceParseEvent event = new SourceParseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.source = source == null ? null : source.toString();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param found    True if an entry is read
+     * @param nanoTime Time spent reading
+     */
+    void read(boolean found, long nanoTime) {
+        parseTime += nanoTime;
+        if (found) {
+            entries++;
+        }
+    }
+
+    void end(int lines, int continuations) {
+        this.lines = lines;
+        this.continuations = continuations;
+        commit();
+    }
+}
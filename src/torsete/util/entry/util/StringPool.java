@@ -0,0 +1,177 @@
+package torsete.util.entry.util;
+
+/**
+ * A bounded pool of canonical strings. Equal strings read from many entries (keys, values, sources) may be replaced
+ * by one string from the pool, so only one copy is kept on the heap.
+ * <p>
+ * The pool is a fixed number of slots. A string is held by the slot given by its hash, and replaces the string
+ * already in the slot. So the pool never grows, and strings which are seen often tend to stay in the pool.
+ * <p>
+ * The characters are looked up before a string is created, so a string found in the pool costs no allocation.
+ * <p>
+ * The pool may be shared by several threads.
+ */
+public class StringPool {
+    /**
+     * Rough estimate of the heap used by a string besides its characters
+     */
+    private static final int STRING_OVERHEAD = 40;
+
+    private String[] strings;
+    private int maxLength;
+    private long hitCount;
+    private long missCount;
+    private long savedBytes;
+
+    /**
+     * @param capacity  Number of slots. Is rounded up to a power of 2
+     * @param maxLength Longer strings are not pooled
+     */
+    public StringPool(int capacity, int maxLength) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 1));
+        strings = new String[slots < capacity ? slots << 1 : slots];
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return A string equal to the string
+     */
+    public String intern(String string) {
+        if (string == null || string.length() > maxLength) {
+            return string;
+        }
+        int slot = slot(string.hashCode());
+        synchronized (this) {
+            String pooled = strings[slot];
+            if (string.equals(pooled)) {
+                hit(pooled);
+                return pooled;
+            }
+            strings[slot] = string;
+            missCount++;
+        }
+        return string;
+    }
+
+    /**
+     * @return A string of the characters
+     */
+    public String intern(CharSequence chars) {
+        int length = chars.length();
+        if (length > maxLength) {
+            return chars.toString();
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int slot = slot(hash);
+        synchronized (this) {
+            String pooled = strings[slot];
+            if (pooled != null && contentEquals(pooled, chars)) {
+                hit(pooled);
+                return pooled;
+            }
+            String string = chars.toString();
+            strings[slot] = string;
+            missCount++;
+            return string;
+        }
+    }
+
+    /**
+     * @return A string of the characters
+     */
+    public String intern(char[] chars, int offset, int length) {
+        if (length > maxLength) {
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = slot(hash);
+        synchronized (this) {
+            String pooled = strings[slot];
+            if (pooled != null && contentEquals(pooled, chars, offset, length)) {
+                hit(pooled);
+                return pooled;
+            }
+            String string = new String(chars, offset, length);
+            strings[slot] = string;
+            missCount++;
+            return string;
+        }
+    }
+
+    /**
+     * Empties the pool. The counters are kept
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = null;
+        }
+    }
+
+    /**
+     * @return Number of strings found in the pool
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return Number of strings not found in the pool (strings longer than the maximum length are not counted)
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return Hits per lookup. 0 if there are no lookups
+     */
+    public synchronized double getHitRate() {
+        long count = hitCount + missCount;
+        return count == 0 ? 0 : (double) hitCount / count;
+    }
+
+    /**
+     * @return Rough estimate of the heap saved by the strings found in the pool
+     */
+    public synchronized long getSavedBytes() {
+        return savedBytes;
+    }
+
+    private void hit(String pooled) {
+        hitCount++;
+        savedBytes += STRING_OVERHEAD + 2 * pooled.length();
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & (strings.length - 1);
+    }
+
+    private static boolean contentEquals(String string, CharSequence chars) {
+        if (string.length() != chars.length()) {
+            return false;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) != chars.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contentEquals(String string, char[] chars, int offset, int length) {
+        if (string.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (string.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,6 +1,8 @@
 package torsete.util.stream;
 
+import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -10,14 +12,40 @@ import java.util.stream.StreamSupport;
  * Facilitates streaming from a {@link Supplier<T>} which delivers the stream elements (T),
  * and a {@link Supplier<Boolean>} which controls when the stream should be closed.
  * <p>
+ * The {@link Supplier<Boolean>} tells if there are no more elements. It is asked before each element, so an empty source is supported.
+ * Alternatively the elements may be delivered in bulk by a {@link Supplier<T[]>} (see {@link #setBatchSupplier(Supplier)}).
+ * <p>
  * A {@link Runnable} to be executed when the stream is closed is optional.
- * But nice to have if e.g. a Reader or the like should be closed
+ * But nice to have if e.g. a Reader or the like should be closed.
+ * It is executed once: When the last element is taken from the suppliers, or when the stream is closed.
+ * <p>
+ * A parallel stream takes batches of elements from the suppliers (see {@link #setSplitBatchSize(int)}).
+ * The suppliers are called by one thread at a time.
  */
 public class BaseSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
-    private Stream<T> stream;
+    private static final int DEFAULT_SPLIT_BATCH_SIZE = 1024;
+
     private Supplier<T> nextSupplier;
     private Supplier<Boolean> isLastSupplier;
+    private Supplier<T[]> batchSupplier;
     private Runnable onClose;
+    private int splitBatchSize;
+
+    /**
+     * The executed close action. Null until a stream is created
+     */
+    private Runnable closeAction;
+    private AtomicBoolean closed;
+    private boolean exhausted;
+    /**
+     * Latest batch from the batch supplier. The next element is at the batch position
+     */
+    private T[] batch;
+    private int batchPosition;
+    /**
+     * Number of elements split off
+     */
+    private long splitCount;
 
     protected BaseSpliterator(long est, int additionalCharacteristics) {
         super(est, additionalCharacteristics);
@@ -25,6 +53,8 @@ public class BaseSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
         setIsLastSupplier(() -> true);
         setOnClose(() -> {
         });
+        splitBatchSize = DEFAULT_SPLIT_BATCH_SIZE;
+        closed = new AtomicBoolean();
     }
 
 
@@ -32,33 +62,97 @@ public class BaseSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
         this(Long.MAX_VALUE, 0);
     }
 
-    public BaseSpliterator setNextSupplier(Supplier<T> nextSupplier) {
+    public BaseSpliterator<T> setNextSupplier(Supplier<T> nextSupplier) {
         this.nextSupplier = nextSupplier;
         return this;
     }
 
-    public BaseSpliterator setIsLastSupplier(Supplier<Boolean> isLastSupplier) {
+    /**
+     * @param isLastSupplier True if there are no more elements
+     */
+    public BaseSpliterator<T> setIsLastSupplier(Supplier<Boolean> isLastSupplier) {
         this.isLastSupplier = isLastSupplier;
         return this;
     }
 
-    public BaseSpliterator setOnClose(Runnable onClose) {
+    /**
+     * Delivers the elements in bulk. Takes precedence over the next supplier and the is last supplier
+     *
+     * @param batchSupplier Delivers the next elements. Null or an empty array if there are no more elements
+     */
+    public BaseSpliterator<T> setBatchSupplier(Supplier<T[]> batchSupplier) {
+        this.batchSupplier = batchSupplier;
+        return this;
+    }
+
+    public BaseSpliterator<T> setOnClose(Runnable onClose) {
         this.onClose = onClose;
         return this;
     }
 
+    /**
+     * @param splitBatchSize Number of elements split off by {@link #trySplit()}
+     */
+    public BaseSpliterator<T> setSplitBatchSize(int splitBatchSize) {
+        this.splitBatchSize = splitBatchSize;
+        return this;
+    }
+
     @Override
     public boolean tryAdvance(Consumer<? super T> action) {
-        action.accept(nextSupplier.get());
-        if (isLastSupplier.get()) {
-            stream.close();
+        if (!hasNext()) {
             return false;
         }
+        action.accept(next());
         return true;
     }
 
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        if (batchSupplier != null) {
+            while (hasNext()) {
+                T[] elements = batch;
+                int end = elements.length;
+                for (int i = batchPosition; i < end; i++) {
+                    action.accept(elements[i]);
+                }
+                batchPosition = end;
+            }
+            return;
+        }
+        while (!exhausted && !isLastSupplier.get()) {
+            action.accept(nextSupplier.get());
+        }
+        exhaust();
+    }
+
+    /**
+     * Takes a batch of elements from the suppliers
+     *
+     * @return Null if there are no more elements
+     */
+    @Override
+    public Spliterator<T> trySplit() {
+        if (!hasNext()) {
+            return null;
+        }
+        Object[] elements = new Object[splitBatchSize];
+        int n = 0;
+        while (n < splitBatchSize && hasNext()) {
+            elements[n++] = next();
+        }
+        splitCount += n;
+        return Spliterators.spliterator(elements, 0, n, characteristics());
+    }
+
+    @Override
+    public long estimateSize() {
+        long est = super.estimateSize();
+        return est == Long.MAX_VALUE ? est : Math.max(0, est - splitCount);
+    }
+
     Stream<T> stream() {
-        return stream = StreamSupport.stream(this, false).onClose(onClose);
+        return stream(onClose, false);
     }
 
     /**
@@ -66,6 +160,59 @@ public class BaseSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
      * @return
      */
     Stream<T> stream(Runnable onClose) {
-        return stream = StreamSupport.stream(this, false).onClose(onClose);
+        return stream(onClose, false);
+    }
+
+    /**
+     * @return A parallel stream taking batches of elements from the suppliers
+     */
+    Stream<T> parallelStream() {
+        return stream(onClose, true);
+    }
+
+    private Stream<T> stream(Runnable onClose, boolean parallel) {
+        closeAction = onClose;
+        return StreamSupport.stream(this, parallel).onClose(this::close);
+    }
+
+    private boolean hasNext() {
+        if (exhausted) {
+            return false;
+        }
+        if (batchSupplier != null) {
+            while (batch == null || batchPosition == batch.length) {
+                batch = batchSupplier.get();
+                batchPosition = 0;
+                if (batch == null || batch.length == 0) {
+                    batch = null;
+                    exhaust();
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (isLastSupplier.get()) {
+            exhaust();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return The next element. Must follow {@link #hasNext()}
+     */
+    private T next() {
+        return batchSupplier != null ? batch[batchPosition++] : nextSupplier.get();
+    }
+
+    private void exhaust() {
+        exhausted = true;
+        close();
+    }
+
+    private void close() {
+        if (closed.compareAndSet(false, true)) {
+            (closeAction != null ? closeAction : onClose).run();
+        }
     }
 }
@@ -0,0 +1,207 @@
+package torsete.util.stream;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Publishes the elements of a {@link Stream} to one {@link Flow.Subscriber}.
+ * <p>
+ * The stream is created and read by the executor when the subscriber requests elements, so the subscribing thread is
+ * never blocked by reading. Only the requested elements are read. At most a batch of elements is delivered by one task
+ * of the executor, so a long stream does not hold a thread of the executor.
+ * <p>
+ * A {@link RuntimeException} thrown while reading is delivered by {@link Flow.Subscriber#onError(Throwable)}. An exception
+ * thrown by the subscriber cancels the subscription, and an {@link Error} is not caught.
+ * The stream is closed when it is completed, when it fails and when the subscription is cancelled.
+ */
+public class StreamPublisher<T> implements Flow.Publisher<T> {
+    private Supplier<Stream<T>> streamSupplier;
+    private Executor executor;
+    private int batchSize;
+    private AtomicBoolean subscribed;
+
+    /**
+     * @param streamSupplier Is called once by the executor
+     */
+    public StreamPublisher(Supplier<Stream<T>> streamSupplier, Executor executor) {
+        this.streamSupplier = streamSupplier;
+        this.executor = executor;
+        batchSize = 256;
+        subscribed = new AtomicBoolean();
+    }
+
+    /**
+     * @param batchSize Maximum number of elements delivered by one task of the executor
+     */
+    public StreamPublisher<T> setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * The stream is read once, so a second subscriber gets an {@link IllegalStateException}
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        boolean first = subscribed.compareAndSet(false, true);
+        subscriber.onSubscribe(new StreamSubscription(subscriber, !first));
+        if (!first) {
+            subscriber.onError(new IllegalStateException("The stream is already subscribed"));
+        }
+    }
+
+    /**
+     * Delivers the requested elements. The elements are delivered by one task of the executor at a time
+     */
+    private class StreamSubscription implements Flow.Subscription, Runnable {
+        private Flow.Subscriber<? super T> subscriber;
+        private AtomicLong demand;
+        /**
+         * Number of signals not yet handled by a task. A task is running or submitted while it is positive
+         */
+        private AtomicInteger signals;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private Stream<T> stream;
+        private Iterator<T> iterator;
+        private boolean terminated;
+
+        /**
+         * @param terminated True if the stream is not to be read
+         */
+        StreamSubscription(Flow.Subscriber<? super T> subscriber, boolean terminated) {
+            this.subscriber = subscriber;
+            this.terminated = terminated;
+            demand = new AtomicLong();
+            signals = new AtomicInteger();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " elements");
+            } else {
+                demand.accumulateAndGet(n, (d, m) -> d + m < 0 ? Long.MAX_VALUE : d + m);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            signal();
+        }
+
+        @Override
+        public void run() {
+            int missed = signals.get();
+            while (true) {
+                if (!deliver()) {
+                    executor.execute(this);
+                    return;
+                }
+                missed = signals.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void signal() {
+            if (signals.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * Delivers a batch of the requested elements
+         *
+         * @return False if more elements are requested than the batch
+         */
+        private boolean deliver() {
+            if (terminated) {
+                return true;
+            }
+            if (cancelled) {
+                close();
+                return true;
+            }
+            if (invalidRequest != null) {
+                fail(invalidRequest);
+                return true;
+            }
+            for (int i = 0; i < batchSize; i++) {
+                if (cancelled) {
+                    close();
+                    return true;
+                }
+                T element;
+                try {
+                    if (iterator == null) {
+                        stream = streamSupplier.get();
+                        iterator = stream.iterator();
+                    }
+                    if (!iterator.hasNext()) {
+                        complete();
+                        return true;
+                    }
+                    if (demand.get() == 0) {
+                        return true;
+                    }
+                    element = iterator.next();
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return true;
+                }
+                demand.decrementAndGet();
+                try {
+                    subscriber.onNext(element);
+                } catch (RuntimeException e) {
+                    // The subscriber has broken the rules (see rule 2.13 of the reactive streams), so it is cancelled
+                    close();
+                    return true;
+                }
+            }
+            return demand.get() == 0;
+        }
+
+        /**
+         * Terminates the subscription, and signals the completion. No signal follows
+         */
+        private void complete() {
+            close();
+            try {
+                subscriber.onComplete();
+            } catch (RuntimeException e) {
+                // Dropped, as the subscription is terminated (see rule 2.13 of the reactive streams)
+            }
+        }
+
+        /**
+         * Terminates the subscription, and signals the exception. No signal follows
+         */
+        private void fail(Throwable throwable) {
+            close();
+            try {
+                subscriber.onError(throwable);
+            } catch (RuntimeException e) {
+                // Dropped, as the subscription is terminated (see rule 2.13 of the reactive streams)
+            }
+        }
+
+        private void close() {
+            terminated = true;
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+}
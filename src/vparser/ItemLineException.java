@@ -0,0 +1,19 @@
+package vparser;
+
+/**
+ * An invalid item in the lines of {@link ItemLinesParser}.
+ * <p>
+ * A ForkJoinPool rethrows the exception of a worker as a new exception of the same class with the original as cause,
+ * if the class has a public constructor. This class has none, so the parallel stream of {@link ItemLinesParser}
+ * throws the same exception as the sequential stream
+ */
+class ItemLineException extends IllegalArgumentException {
+
+    /**
+     * @param firstLine Line count of the first line of the item
+     * @param lastLine  Line count of the last line of the item
+     */
+    ItemLineException(int firstLine, int lastLine, IllegalArgumentException e) {
+        super("Fejl i linie " + firstLine + "-" + lastLine + "\n" + e.getMessage());
+    }
+}
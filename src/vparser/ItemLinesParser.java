@@ -1,9 +1,15 @@
 package vparser;
 
+import torsete.util.stream.StreamPublisher;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -20,10 +26,15 @@ public class ItemLinesParser implements Iterator<Item> {
     private int lineCount;
     private int itemCount;
     private ItemParser parser;
+    /**
+     * The lines of an item. Reused from item to item
+     */
+    private StringBuilder source;
 
     public ItemLinesParser(Reader reader) {
         this.reader = reader;
-        parser = new ItemParser().enableCaseSensitiveName(false).enableLineType(true);
+        parser = newItemParser();
+        source = new StringBuilder();
 
     }
 
@@ -33,6 +44,33 @@ public class ItemLinesParser implements Iterator<Item> {
         return StreamSupport.stream(iterable.spliterator(), false);
     }
 
+    /**
+     * Publishes the items to one subscriber. The items are read and parsed by the executor as they are requested
+     * (see {@link StreamPublisher}). An invalid item is delivered as an {@link IllegalArgumentException} by onError
+     */
+    public Flow.Publisher<Item> publisher(Executor executor) {
+        return new StreamPublisher<>(this::stream, executor);
+    }
+
+    /**
+     * Parses the items concurrently. The items are delivered in the same order and with the same numbering as by {@link #stream()},
+     * and an invalid item throws the same {@link IllegalArgumentException}.
+     * <p>
+     * Note. All lines are read before the parsing starts
+     */
+    public Stream<Item> parallelStream() {
+        open();
+        int firstLineCount = lineCount - 1;
+        List<String> lines = new ArrayList<>();
+        while (hasNext()) {
+            lines.add(nextLine);
+            nextLine = readLine();
+        }
+        ItemLinesSpliterator spliterator = new ItemLinesSpliterator(lines, firstLineCount, itemCount, this::newItemParser);
+        itemCount += spliterator.estimateSize();
+        return StreamSupport.stream(spliterator, true);
+    }
+
     void open() {
         this.bufferedReader = new BufferedReader(reader);
         nextLine = readLine();
@@ -46,28 +84,35 @@ public class ItemLinesParser implements Iterator<Item> {
 
     @Override
     public Item next() {
-        String source = nextLine;
+        return nextView().toItem();
+    }
+
+    /**
+     * As {@link #next()}, but the item is not created
+     *
+     * @return The view of the parser. It is only valid until the next call
+     */
+    public ItemView nextView() {
+        source.setLength(0);
+        source.append(nextLine);
         int previousLineCount = lineCount;
         nextLine = readLine();
-        while (hasNext() && (nextLine.length() == 0 || nextLine.charAt(0) == ' ')) {
-            source = source.trim() + " " + nextLine.trim();
+        while (hasNext() && ItemLinesSpliterator.isContinuation(nextLine)) {
+            appendContinuation(source, nextLine);
             nextLine = readLine();
         }
 
-        Item item = new Item();
+        ItemView itemView;
         parser.setLine(source);
         try {
-            parser.parse();
+            itemView = parser.getItemView();
         } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Fejl i linie " + (previousLineCount - 1) + "-" + (lineCount - 2) + "\n" + e.getMessage());
+            throw new ItemLineException(previousLineCount - 1, lineCount - 2, e);
         }
-        item.setItemTypeName(parser.getLineType());
-        item.setVariables(parser.getVariables());
-        item.setSource(source);
-        item.setLineCount(lineCount - 2);
-        item.setCount(itemCount);
+        itemView.setLineCount(lineCount - 2);
+        itemView.setCount(itemCount);
         itemCount++;
-        return item;
+        return itemView;
     }
 
     private String readLine() {
@@ -87,5 +132,37 @@ public class ItemLinesParser implements Iterator<Item> {
         return parser.isLiteral(name);
     }
 
+    /**
+     * Appends a continuation line as source = source.trim() + " " + line.trim(), but in place
+     */
+    static void appendContinuation(StringBuilder source, String line) {
+        int end = source.length();
+        while (end > 0 && source.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        source.setLength(end);
+        int start = 0;
+        while (start < end && source.charAt(start) <= ' ') {
+            start++;
+        }
+        if (start > 0) {
+            source.delete(0, start);
+        }
+        source.append(' ');
+        int lineStart = 0;
+        int lineEnd = line.length();
+        while (lineStart < lineEnd && line.charAt(lineStart) <= ' ') {
+            lineStart++;
+        }
+        while (lineEnd > lineStart && line.charAt(lineEnd - 1) <= ' ') {
+            lineEnd--;
+        }
+        source.append(line, lineStart, lineEnd);
+    }
+
+    private ItemParser newItemParser() {
+        return new ItemParser().enableCaseSensitiveName(false).enableLineType(true);
+    }
+
 
 }
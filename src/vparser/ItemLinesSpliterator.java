@@ -0,0 +1,134 @@
+package vparser;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Splittable parsing of items from lines read in advance.
+ * <p>
+ * The items are split at item boundaries (a line not starting with a space starts a new item).
+ * Each split has its own {@link ItemParser}, so the splits may be parsed by separate threads.
+ */
+class ItemLinesSpliterator implements Spliterator<Item> {
+    private List<String> lines;
+    /**
+     * Index of the first line of each item. The last element is the number of lines
+     */
+    private int[] itemStarts;
+    /**
+     * Line count of the first line
+     */
+    private int firstLineCount;
+    /**
+     * Count of the first item
+     */
+    private int firstItemCount;
+    private Supplier<ItemParser> parserFactory;
+    private ItemParser parser;
+    private StringBuilder source;
+
+    /**
+     * Next item
+     */
+    private int index;
+    /**
+     * Item after the last item
+     */
+    private int end;
+
+    ItemLinesSpliterator(List<String> lines, int firstLineCount, int firstItemCount, Supplier<ItemParser> parserFactory) {
+        this.lines = lines;
+        this.firstLineCount = firstLineCount;
+        this.firstItemCount = firstItemCount;
+        this.parserFactory = parserFactory;
+        itemStarts = findItemStarts(lines);
+        index = 0;
+        end = itemStarts.length - 1;
+    }
+
+    private ItemLinesSpliterator(ItemLinesSpliterator spliterator, int index, int end) {
+        lines = spliterator.lines;
+        itemStarts = spliterator.itemStarts;
+        firstLineCount = spliterator.firstLineCount;
+        firstItemCount = spliterator.firstItemCount;
+        parserFactory = spliterator.parserFactory;
+        this.index = index;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Item> action) {
+        if (index >= end) {
+            return false;
+        }
+        action.accept(parse(index++));
+        return true;
+    }
+
+    @Override
+    public Spliterator<Item> trySplit() {
+        int middle = (index + end) >>> 1;
+        if (middle <= index) {
+            return null;
+        }
+        ItemLinesSpliterator prefix = new ItemLinesSpliterator(this, index, middle);
+        index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+    }
+
+    private Item parse(int i) {
+        if (parser == null) {
+            parser = parserFactory.get();
+            source = new StringBuilder();
+        }
+        int firstLine = itemStarts[i];
+        int lastLine = itemStarts[i + 1] - 1;
+        source.setLength(0);
+        source.append(lines.get(firstLine));
+        for (int j = firstLine + 1; j <= lastLine; j++) {
+            ItemLinesParser.appendContinuation(source, lines.get(j));
+        }
+        ItemView itemView;
+        parser.setLine(source);
+        try {
+            itemView = parser.getItemView();
+        } catch (IllegalArgumentException e) {
+            throw new ItemLineException(firstLineCount + firstLine, firstLineCount + lastLine, e);
+        }
+        itemView.setLineCount(firstLineCount + lastLine);
+        itemView.setCount(firstItemCount + i);
+        return itemView.toItem();
+    }
+
+    private static int[] findItemStarts(List<String> lines) {
+        int[] itemStarts = new int[lines.size() + 1];
+        int count = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            if (i == 0 || !isContinuation(lines.get(i))) {
+                itemStarts[count++] = i;
+            }
+        }
+        itemStarts[count++] = lines.size();
+        return Arrays.copyOf(itemStarts, count);
+    }
+
+    /**
+     * @return True if the line belongs to the item of the previous line
+     */
+    static boolean isContinuation(String line) {
+        return line.length() == 0 || line.charAt(0) == ' ';
+    }
+}
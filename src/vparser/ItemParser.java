@@ -1,31 +1,105 @@
 package vparser;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
  * Created by Torsten on 08.06.2018.
+ * <p>
+ * The parser records the line type, the names and the values as offsets into the line.
+ * Strings are only created when names and values are requested, either by the methods of the parser
+ * or by the {@link ItemView} of the parser.
  */
 public class ItemParser {
     public static final String LEGALNAMECHARS = "abcdefghijklmnopqrstuvwxyzæøåABCDEFGHIJKLMOPQRSTUVWXYZÆØÅ1234567890_.";
 
-
-    private String line;
+    /**
+     * Lookup of {@link #LEGALNAMECHARS}
+     */
+    private static final boolean[] LEGALNAMECHARTABLE = newLegalNameCharTable(LEGALNAMECHARS);
+
+    /**
+     * Names are searched linearly up to this number of variables
+     */
+    private static final int MAXLINEARSEARCH = 8;
+
+    /**
+     * Legal name characters below 256 (ASCII and Latin-1, which includes the Danish letters)
+     */
+    private boolean[] legalNameCharTable = LEGALNAMECHARTABLE;
+    /**
+     * Legal name characters from 256 and up. Null if there are none
+     */
+    private String legalNameCharsAbove255;
+
+    private CharSequence line;
     private int pos;
-
-    private StringBuilder leftSide;
-    private StringBuilder rightSide;
-    private Map<String, String> variables;
+    private boolean isParsed;
+
+    /**
+     * Four offsets into the line per variable: Start and end of the name, start and end of the value.
+     * A literal value starts at its opening " and ends before its closing "
+     */
+    private int[] spans;
+    private int variableCount;
+    /**
+     * Hash of the name of each variable (of the lower case name unless names are case sensitive)
+     */
+    private int[] nameHashes;
+    /**
+     * Open addressing of the variables by name hash. Only used if there are more than {@link #MAXLINEARSEARCH} variables
+     */
+    private int[] nameTable;
+    /**
+     * A slot of the name table is used if its stamp is the current stamp. A new line gets a new stamp
+     */
+    private int[] nameTableStamps;
+    private int stamp;
+    /**
+     * Start and end of the line type. Start is -1 if there is no line type
+     */
+    private int lineTypeStart;
+    private int lineTypeEnd;
 
     private boolean isVariablePending;
 
     private boolean lineTypeEnabled;
     private boolean isNameCaseSensitive;
-    private String lineType;
 
-    public ItemParser setLine(String line) {
+    private ItemView itemView;
+
+    public ItemParser() {
+        spans = new int[4 * 8];
+        nameHashes = new int[8];
+        lineTypeStart = -1;
+    }
+
+    /**
+     * @param line Is read by the parser until the next line is set. A tab is read as a space
+     */
+    public ItemParser setLine(CharSequence line) {
         this.line = line;
-        variables = null;
+        isParsed = false;
+        variableCount = 0;
+        lineTypeStart = -1;
+        return this;
+    }
+
+    /**
+     * Replaces the characters of names, line types and unquoted values. Default is {@link #LEGALNAMECHARS}
+     */
+    public ItemParser setLegalNameChars(String legalNameChars) {
+        legalNameCharTable = newLegalNameCharTable(legalNameChars);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < legalNameChars.length(); i++) {
+            if (legalNameChars.charAt(i) >= legalNameCharTable.length) {
+                sb.append(legalNameChars.charAt(i));
+            }
+        }
+        legalNameCharsAbove255 = sb.length() == 0 ? null : sb.toString();
+        isParsed = false;
         return this;
     }
 
@@ -43,45 +117,169 @@ public class ItemParser {
         return parseLine();
     }
 
+    /**
+     * @return Null if the line is not parsed or if line types are not enabled
+     */
     public String getLineType() {
-        return lineType;
+        return lineTypeStart < 0 ? null : name(lineTypeStart, lineTypeEnd);
     }
 
     public String getValue(String name) {
-        if (!isNameCaseSensitive) {
-            name = name.toLowerCase();
-        }
         parse();
-        String value = variables.get(name);
-        return isLiteralValue(value) ? value.substring(1) : value;
+        int i = indexOf(name);
+        return i < 0 ? null : getValue(i);
     }
 
     public boolean isLiteral(String name) {
-        if (!isNameCaseSensitive) {
-            name = name.toLowerCase();
-        }
         parse();
-        return isLiteralValue(variables.get(name));
+        int i = indexOf(name);
+        return i >= 0 && isLiteral(i);
     }
 
     public Map<String, String> getVariables() {
+        parse();
         Map<String, String> variables = new HashMap<>();
-        this.variables.keySet().forEach(k -> variables.put(k, getValue(k)));
+        for (int i = 0; i < variableCount; i++) {
+            variables.put(getName(i), getValue(i));
+        }
         return variables;
     }
 
-    private boolean isLiteralValue(String value) {
-        return value != null && value.startsWith("\"");
+    /**
+     * @return A view of the parsed line. It is the same object for every line, so it is only valid until the next line is set
+     */
+    public ItemView getItemView() {
+        parse();
+        if (itemView == null) {
+            itemView = new ItemView(this);
+        }
+        return itemView;
+    }
+
+    CharSequence getLine() {
+        return line;
+    }
+
+    int getVariableCount() {
+        return variableCount;
+    }
+
+    String getName(int i) {
+        return name(spans[4 * i], spans[4 * i + 1]);
+    }
+
+    String getValue(int i) {
+        int start = spans[4 * i + 2];
+        int end = spans[4 * i + 3];
+        if (!isLiteral(i)) {
+            return string(start, end);
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int p = start + 1; p < end; p++) {
+            char c = charAt(p);
+            sb.append(c);
+            if (c == '\"') {
+                p++;
+            }
+        }
+        return sb.toString();
+    }
+
+    boolean isLiteral(int i) {
+        return line.charAt(spans[4 * i + 2]) == '\"';
+    }
+
+    /**
+     * @return -1 if the name is not present
+     */
+    int indexOf(String name) {
+        if (!isNameCaseSensitive) {
+            name = name.toLowerCase(Locale.ROOT);
+        }
+        int hash = name.hashCode();
+        if (variableCount <= MAXLINEARSEARCH) {
+            for (int i = 0; i < variableCount; i++) {
+                if (nameHashes[i] == hash && nameEquals(spans[4 * i], spans[4 * i + 1], name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = nameTable.length - 1;
+        for (int slot = hash & mask; nameTableStamps[slot] == stamp; slot = (slot + 1) & mask) {
+            int i = nameTable[slot];
+            if (nameHashes[i] == hash && nameEquals(spans[4 * i], spans[4 * i + 1], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return True if a previous variable has the name of the variable
+     */
+    private boolean isDuplicateName(int variable) {
+        int start = spans[4 * variable];
+        int end = spans[4 * variable + 1];
+        int hash = nameHashes[variable];
+        if (variable <= MAXLINEARSEARCH) {
+            for (int i = 0; i < variable; i++) {
+                if (nameHashes[i] == hash && nameEquals(spans[4 * i], spans[4 * i + 1], start, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int mask = nameTable.length - 1;
+        for (int slot = hash & mask; nameTableStamps[slot] == stamp; slot = (slot + 1) & mask) {
+            int i = nameTable[slot];
+            if (nameHashes[i] == hash && nameEquals(spans[4 * i], spans[4 * i + 1], start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the variable to the name table when there are too many variables to search them linearly
+     */
+    private void addName(int variable) {
+        if (variable < MAXLINEARSEARCH) {
+            return;
+        }
+        if (variable == MAXLINEARSEARCH || 2 * (variable + 1) > nameTable.length) {
+            int capacity = nameTable == null ? 64 : nameTable.length;
+            while (2 * (variable + 1) > capacity) {
+                capacity *= 2;
+            }
+            if (nameTable == null || capacity > nameTable.length) {
+                nameTable = new int[capacity];
+                nameTableStamps = new int[capacity];
+            }
+            stamp++;
+            for (int i = 0; i < variable; i++) {
+                putName(i);
+            }
+        }
+        putName(variable);
+    }
+
+    private void putName(int variable) {
+        int mask = nameTable.length - 1;
+        int slot = nameHashes[variable] & mask;
+        while (nameTableStamps[slot] == stamp) {
+            slot = (slot + 1) & mask;
+        }
+        nameTable[slot] = variable;
+        nameTableStamps[slot] = stamp;
     }
 
     private ItemParser parseLine() {
-        if (variables != null) {
+        if (isParsed) {
             return this;
         }
-        line = line.replace('\t', ' ');
-        leftSide = new StringBuilder();
-        rightSide = new StringBuilder();
-        variables = new HashMap<>();
+        variableCount = 0;
+        lineTypeStart = -1;
         pos = 0;
         isVariablePending = false;
 
@@ -92,6 +290,7 @@ public class ItemParser {
         while (currentChar() > 0) {
             parseVariables();
         }
+        isParsed = true;
         return this;
     }
 
@@ -99,15 +298,12 @@ public class ItemParser {
         while (currentChar() == ' ') {
             nextPlease();
         }
+        int start = pos;
         while (isLegalNameChar(currentChar())) {
-            leftSide.append(currentChar());
             nextPlease();
         }
-        lineType = leftSide.toString();
-        if (!isNameCaseSensitive) {
-            lineType = lineType.toLowerCase();
-        }
-        leftSide = new StringBuilder();
+        lineTypeStart = start;
+        lineTypeEnd = pos;
     }
 
     private void parseVariables() {
@@ -115,7 +311,7 @@ public class ItemParser {
             nextPlease();
         }
         if (currentChar() == ',') {
-            if (variables.size() == 0) {
+            if (variableCount == 0) {
                 reportError("Uventet komma");
             }
             nextPlease();
@@ -125,20 +321,25 @@ public class ItemParser {
             nextPlease();
         }
         if (currentChar() > 0) {
-            parseLeftSide();
-            if (leftSide.length() == 0) {
+            if (variableCount == nameHashes.length) {
+                spans = Arrays.copyOf(spans, 2 * spans.length);
+                nameHashes = Arrays.copyOf(nameHashes, 2 * nameHashes.length);
+            }
+            int offset = 4 * variableCount;
+            parseLeftSide(offset);
+            if (spans[offset] == spans[offset + 1]) {
                 reportError("Venstreside mangler til værdien");
             }
-            if (variables.get(leftSide.toString()) != null) {
+            nameHashes[variableCount] = nameHash(spans[offset], spans[offset + 1]);
+            if (isDuplicateName(variableCount)) {
                 reportError("Dubleret navn");
             }
-            parseRightSide();
-            if (rightSide.length() == 0) {
+            parseRightSide(offset + 2);
+            if (spans[offset + 2] == spans[offset + 3]) {
                 reportError("Værdien mangler");
             }
-            variables.put(leftSide.toString(), rightSide.toString());
-            leftSide = new StringBuilder();
-            rightSide = new StringBuilder();
+            addName(variableCount);
+            variableCount++;
         } else {
             if (isVariablePending) {
                 reportError("Uventet afslutning på linien");
@@ -146,11 +347,12 @@ public class ItemParser {
         }
     }
 
-    private void parseLeftSide() {
+    private void parseLeftSide(int offset) {
+        spans[offset] = pos;
         while (isLegalNameChar(currentChar())) {
-            leftSide.append(currentChar());
             nextPlease();
         }
+        spans[offset + 1] = pos;
         while (currentChar() == ' ') {
             nextPlease();
         }
@@ -159,29 +361,30 @@ public class ItemParser {
             reportError(currentChar() == 0 ? "" : "Tegnet " + currentChar() + " er ugyldigt her");
         }
         nextPlease();
-        if (!isNameCaseSensitive) {
-            leftSide = new StringBuilder(leftSide.toString().toLowerCase());
-        }
     }
 
 
-    private void parseRightSide() {
+    private void parseRightSide(int offset) {
         while (currentChar() == ' ') {
             nextPlease();
         }
+        spans[offset] = pos;
         if (currentChar() == '\"') {
             parseString();
+            spans[offset + 1] = pos - 1;
         } else {
             while (isLegalNameChar(currentChar())) {
-                rightSide.append(currentChar());
                 nextPlease();
             }
+            spans[offset + 1] = pos;
         }
     }
 
+    /**
+     * Skips a literal value. A "" inside the value is a "
+     */
     private void parseString() {
         while (true) {
-            rightSide.append(currentChar());
             nextPlease();
             if (currentChar() == '\"' && nextChar() == '\"') {
                 nextPlease();
@@ -210,16 +413,81 @@ public class ItemParser {
         if (pos >= line.length()) {
             return 0;
         }
-        return line.charAt(pos);
+        return charAt(pos);
     }
 
     private char nextChar() {
         if (pos + 1 >= line.length()) {
             return 0;
         }
-        return line.charAt(pos + 1);
+        return charAt(pos + 1);
+    }
+
+    private char charAt(int p) {
+        char c = line.charAt(p);
+        return c == '\t' ? ' ' : c;
+    }
+
+    /**
+     * @return The name as lower case unless names are case sensitive
+     */
+    private String name(int start, int end) {
+        if (isNameCaseSensitive) {
+            return string(start, end);
+        }
+        char[] chars = new char[end - start];
+        for (int p = start; p < end; p++) {
+            chars[p - start] = Character.toLowerCase(charAt(p));
+        }
+        return new String(chars);
+    }
+
+    private String string(int start, int end) {
+        char[] chars = new char[end - start];
+        for (int p = start; p < end; p++) {
+            chars[p - start] = charAt(p);
+        }
+        return new String(chars);
     }
 
+    private boolean nameEquals(int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int p = start; p < end; p++) {
+            if (nameChar(charAt(p)) != name.charAt(p - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean nameEquals(int start, int end, int otherStart, int otherEnd) {
+        if (end - start != otherEnd - otherStart) {
+            return false;
+        }
+        for (int p = start; p < end; p++) {
+            if (nameChar(charAt(p)) != nameChar(charAt(otherStart + p - start))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return As {@link String#hashCode()} of the name
+     */
+    private int nameHash(int start, int end) {
+        int hash = 0;
+        for (int p = start; p < end; p++) {
+            hash = 31 * hash + nameChar(charAt(p));
+        }
+        return hash;
+    }
+
+    private char nameChar(char c) {
+        return isNameCaseSensitive ? c : Character.toLowerCase(c);
+    }
 
     private String fill(int count) {
         StringBuilder sb = new StringBuilder();
@@ -230,13 +498,28 @@ public class ItemParser {
     }
 
     private boolean isLegalNameChar(char c) {
-        return LEGALNAMECHARS.contains(String.valueOf(c));
+        if (c < legalNameCharTable.length) {
+            return legalNameCharTable[c];
+        }
+        return legalNameCharsAbove255 != null && legalNameCharsAbove255.indexOf(c) >= 0;
+    }
+
+    private static boolean[] newLegalNameCharTable(String legalNameChars) {
+        boolean[] table = new boolean[256];
+        for (int i = 0; i < legalNameChars.length(); i++) {
+            char c = legalNameChars.charAt(i);
+            // 0 marks the end of the line
+            if (c > 0 && c < table.length) {
+                table[c] = true;
+            }
+        }
+        return table;
     }
 
     private void reportError(String message) {
         throw new IllegalArgumentException(message + "\n" +
-                line + "\n" +
+                line.toString().replace('\t', ' ') + "\n" +
                 fill(pos) + "|" + "\n");
 
     }
-}
\ No newline at end of file
+}
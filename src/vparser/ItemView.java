@@ -0,0 +1,100 @@
+package vparser;
+
+/**
+ * A view of the item parsed by an {@link ItemParser}. Names and values are created when they are requested.
+ * <p>
+ * The view is reused by the parser, so it is only valid until the parser is given the next line.
+ * Use {@link #toItem()} to keep the item.
+ */
+public class ItemView {
+    private ItemParser parser;
+
+    private int count;
+    private int lineCount;
+
+    ItemView(ItemParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * @see Item#getCount()
+     */
+    public int getCount() {
+        return count;
+    }
+
+    void setCount(int count) {
+        this.count = count;
+    }
+
+    /**
+     * @see Item#getLineCount()
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    void setLineCount(int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * @see Item#getSource()
+     */
+    public String getSource() {
+        return parser.getLine().toString();
+    }
+
+    public String getItemTypeName() {
+        return parser.getLineType();
+    }
+
+    public int getVariableCount() {
+        return parser.getVariableCount();
+    }
+
+    /**
+     * @param i 0 to {@link #getVariableCount()} - 1 in the order of the line
+     */
+    public String getName(int i) {
+        return parser.getName(i);
+    }
+
+    /**
+     * @param i 0 to {@link #getVariableCount()} - 1 in the order of the line
+     * @return A literal value without the enclosing "
+     */
+    public String getValue(int i) {
+        return parser.getValue(i);
+    }
+
+    public boolean isLiteral(int i) {
+        return parser.isLiteral(i);
+    }
+
+    /**
+     * @return Null if the name is not present
+     */
+    public String getValue(String name) {
+        int i = parser.indexOf(name);
+        return i < 0 ? null : parser.getValue(i);
+    }
+
+    public boolean isLiteral(String name) {
+        int i = parser.indexOf(name);
+        return i >= 0 && parser.isLiteral(i);
+    }
+
+    /**
+     * @return A new item with the content of the view
+     */
+    public Item toItem() {
+        Item item = new Item();
+        item.setItemTypeName(getItemTypeName());
+        item.setVariables(parser.getVariables());
+        item.setSource(getSource());
+        item.setLineCount(lineCount);
+        item.setCount(count);
+        return item;
+    }
+}
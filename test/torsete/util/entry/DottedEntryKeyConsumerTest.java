@@ -0,0 +1,92 @@
+package torsete.util.entry;
+
+import org.junit.Test;
+import torsete.util.entry.util.DottedEntryKeyConsumer;
+
+import java.util.function.Consumer;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DottedEntryKeyConsumerTest {
+
+    @Test
+    public void testDottedKeys() {
+        verify(new DottedEntryKeyConsumer<>(),
+                "aaa.bbb", "aaa.bbb",
+                ".ccc", "aaa.ccc",
+                "..ddd", "aaa.ccc.ddd",
+                ".eee", "aaa.eee",
+                "fff", "fff",
+                ".ggg", "fff.ggg");
+    }
+
+    @Test
+    public void testTrimmedSegments() {
+        verify(new DottedEntryKeyConsumer<>(),
+                " aaa . bbb ", " aaa . bbb ",
+                " . ccc", "aaa.ccc",
+                "x .\ty", "x.y");
+    }
+
+    @Test
+    public void testSegmentsBeyondPreviousKey() {
+        verify(new DottedEntryKeyConsumer<>(),
+                "aaa", "aaa",
+                "...bbb", "aaa...bbb",
+                "..ccc.", "aaa..ccc.bbb");
+    }
+
+    @Test
+    public void testSplitChars() {
+        verify(new DottedEntryKeyConsumer<>('/', '.'),
+                "aaa/bbb", "aaa/bbb",
+                "/ccc", "aaa.ccc",
+                "ddd/eee", "ddd.eee",
+                "ddd.eee", "ddd.eee");
+    }
+
+    @Test
+    public void testLongKeys() {
+        StringBuilder sb = new StringBuilder();
+        StringBuilder dots = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append(i == 0 ? "" : ".").append("segment").append(i);
+            dots.append('.');
+        }
+        verify(new DottedEntryKeyConsumer<>(),
+                sb.toString(), sb.toString(),
+                dots + "last", sb + ".last");
+    }
+
+    @Test
+    public void testUnchangedKeyIsKept() {
+        DottedEntryKeyConsumer<String, String> consumer = new DottedEntryKeyConsumer<>();
+        consumer.accept(new LinkedEntry<>("aaa.bbb", ""));
+        String key = "aaa.ccc";
+        LinkedEntry<String, String> entry = new LinkedEntry<>(key, "");
+        consumer.accept(entry);
+        assertSame(key, entry.getKey());
+    }
+
+    @Test
+    public void testNonStringKeys() {
+        DottedEntryKeyConsumer<Object, String> consumer = new DottedEntryKeyConsumer<>();
+        consumer.accept(new LinkedEntry<>(1, ""));
+        LinkedEntry<Object, String> entry = new LinkedEntry<>(2, "");
+        consumer.accept(entry);
+        assertEquals("2", entry.getKey());
+    }
+
+    /**
+     * @param keysAndExpectedKeys Pairs of a key and the expected replacing key
+     */
+    private void verify(Consumer<LinkedEntry<String, String>> consumer, String... keysAndExpectedKeys) {
+        for (int i = 0; i < keysAndExpectedKeys.length; i += 2) {
+            LinkedEntry<String, String> entry = new LinkedEntry<>(keysAndExpectedKeys[i], "value");
+            consumer.accept(entry);
+            assertEquals(keysAndExpectedKeys[i + 1], entry.getKey());
+            assertEquals("value", entry.getValue());
+        }
+    }
+}
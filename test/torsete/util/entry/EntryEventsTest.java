@@ -0,0 +1,132 @@
+package torsete.util.entry;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import torsete.util.TestUtil;
+import torsete.util.entry.util.DottedEntryKeyConsumer;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the flight recorder events of loading entries
+ */
+public class EntryEventsTest {
+    private TestUtil testUtil;
+
+    @Before
+    public void setUp() {
+        testUtil = new TestUtil(this);
+        testUtil.setupTestFolder();
+    }
+
+    @After
+    public void tearDown() {
+        testUtil.teardownTestFolder();
+    }
+
+    @Test
+    public void testIncludeEvents() throws Exception {
+        testUtil.writeFile("testA",
+                "k1=v1",
+                "include=testB",
+                "k2=v2",
+                "");
+        testUtil.writeFile("testB",
+                "bk1=v1 \\",
+                "  continued",
+                "bk2=v2",
+                "");
+
+        List<RecordedEvent> events = record(() -> newLinkedEntries()
+                .addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .setSource(testUtil.getFile("testA"))
+                .append());
+
+        List<RecordedEvent> includeEvents = events(events, "torsete.entry.Include");
+        assertEquals(2, includeEvents.size());
+        RecordedEvent includeB = includeEvents.get(0);
+        RecordedEvent includeA = includeEvents.get(1);
+        assertTrue(includeA.getString("source").endsWith("testA"));
+        assertEquals(null, includeA.getString("parentSource"));
+        assertEquals(0, includeA.getInt("depth"));
+        assertEquals(2, includeA.getLong("entries"));
+        assertEquals(testUtil.getFile("testA").length(), includeA.getLong("bytes"));
+        assertTrue(includeB.getString("source").endsWith("testB"));
+        assertEquals(includeA.getString("source"), includeB.getString("parentSource"));
+        assertEquals(1, includeB.getInt("depth"));
+        assertEquals(2, includeB.getLong("entries"));
+        assertTrue(includeA.getDuration().compareTo(includeB.getDuration()) >= 0);
+
+        List<RecordedEvent> parseEvents = events(events, "torsete.entry.SourceParse");
+        assertEquals(2, parseEvents.size());
+        RecordedEvent parseB = parseEvents.get(0);
+        RecordedEvent parseA = parseEvents.get(1);
+        assertEquals(includeB.getString("source"), parseB.getString("source"));
+        assertEquals(3, parseB.getInt("lines"));
+        assertEquals(1, parseB.getInt("continuations"));
+        assertEquals(2, parseB.getInt("entries"));
+        assertEquals(includeA.getString("source"), parseA.getString("source"));
+        assertEquals(3, parseA.getInt("lines"));
+        assertEquals(0, parseA.getInt("continuations"));
+        assertEquals(3, parseA.getInt("entries"));
+
+        List<RecordedEvent> consumerEvents = events(events, "torsete.entry.Consumer");
+        assertEquals(1, consumerEvents.size());
+        assertEquals(DottedEntryKeyConsumer.class.getName(), consumerEvents.get(0).getClass("consumer").getName());
+        assertEquals(4, consumerEvents.get(0).getLong("entries"));
+    }
+
+    @Test
+    public void testReaderEvents() throws Exception {
+        List<RecordedEvent> events = record(() -> newLinkedEntries()
+                .setSource(new StringReader("k1=v1\n\nk2=v2 \\\n  v3\n"))
+                .append());
+
+        assertEquals(1, events(events, "torsete.entry.Include").size());
+        assertEquals(0, events(events, "torsete.entry.Consumer").size());
+        List<RecordedEvent> parseEvents = events(events, "torsete.entry.SourceParse");
+        assertEquals(1, parseEvents.size());
+        assertEquals(4, parseEvents.get(0).getInt("lines"));
+        assertEquals(1, parseEvents.get(0).getInt("continuations"));
+        assertEquals(2, parseEvents.get(0).getInt("entries"));
+    }
+
+    private LinkedEntries<Object, Object> newLinkedEntries() {
+        return new LinkedEntries<>().setIncludePredicate(entry -> entry.getKey().toString().contains("include"));
+    }
+
+    private List<RecordedEvent> record(Callable<?> loading) throws Exception {
+        Path file = Files.createTempFile("entries", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("torsete.entry.Include");
+            recording.enable("torsete.entry.SourceParse");
+            recording.enable("torsete.entry.Consumer");
+            recording.start();
+            loading.call();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((event1, event2) -> event1.getEndTime().compareTo(event2.getEndTime()))
+                .collect(Collectors.toList());
+    }
+}
@@ -1,8 +1,10 @@
 package torsete.util.entry;
 
 import org.junit.Test;
+import torsete.util.entry.util.EntryBatchConsumer;
 import torsete.util.entry.util.EntryIterator;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -85,6 +87,36 @@ public class EntryIteratorTest {
 
     }
 
+    @Test
+    public void testBatchConsumer() {
+        List<LinkedEntry<String, String>> orderedEntries = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            orderedEntries.add(new LinkedEntry<>("" + i, "v"));
+        }
+        List<String> keys = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        MyIterator iterator = new MyIterator(orderedEntries);
+        iterator.addEntryConsumer(entry -> entry.replaceKey("k" + entry.getKey()));
+        iterator.addEntryConsumer((EntryBatchConsumer<String, String>) entries -> {
+            batchSizes.add(entries.size());
+            entries.forEach(entry -> keys.add(entry.getKey()));
+        });
+
+        assertEquals("k0=v", iterator.next().toString());
+        assertEquals("k1=v", iterator.lookAhead().toString());
+        assertEquals(256, iterator.i);
+        List<LinkedEntry<String, String>> entries = new ArrayList<>();
+        iterator.forEachRemaining(entries::add);
+
+        assertEquals(599, entries.size());
+        assertEquals("k599=v", entries.get(598).toString());
+        assertEquals(entries.get(598), iterator.getLastEntry());
+        assertNull(iterator.lookAhead());
+        assertEquals("[256, 256, 88]", batchSizes.toString());
+        assertEquals(600, keys.size());
+        assertEquals("k300", keys.get(300));
+    }
+
 
     class MyIterator extends EntryIterator<String, String> {
         private int i;
@@ -0,0 +1,102 @@
+package torsete.util.entry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import torsete.util.TestUtil;
+import torsete.util.entry.util.EntrySourceCache;
+
+import java.io.IOException;
+
+import static junit.framework.TestCase.assertEquals;
+
+/**
+ * Verifies caching of the entries read from files
+ */
+public class EntrySourceCacheTest {
+    private TestUtil testUtil;
+    private EntrySourceCache<Object, Object> sourceCache;
+
+    @Before
+    public void setUp() {
+        testUtil = new TestUtil(this);
+        testUtil.setupTestFolder();
+        sourceCache = new EntrySourceCache<>(100, 1 << 20);
+        testUtil.writeFile("test",
+                "key1=1",
+                "include=testA",
+                "key2=2",
+                "");
+        testUtil.writeFile("testA",
+                "include=testB",
+                "keyA1=A1",
+                "include=testB",
+                "");
+        testUtil.writeFile("testB",
+                "keyB1=B1",
+                "keyB2=B2",
+                "");
+    }
+
+    @After
+    public void tearDown() {
+        testUtil.teardownTestFolder();
+    }
+
+    @Test
+    public void testRepeatedInclude() throws IOException {
+        String expected = "key1=1 keyB1=B1 keyB2=B2 keyA1=A1 keyB1=B1 keyB2=B2 key2=2 ";
+
+        assertEquals(expected, load());
+        assertEquals(3, sourceCache.getMissCount());
+        assertEquals(1, sourceCache.getHitCount());
+        assertEquals(3, sourceCache.size());
+
+        assertEquals(expected, load());
+        assertEquals(3, sourceCache.getMissCount());
+        assertEquals(5, sourceCache.getHitCount());
+    }
+
+    @Test
+    public void testChangedFile() throws IOException {
+        load();
+        testUtil.writeFile("testB",
+                "keyB1=changed",
+                "");
+
+        assertEquals("key1=1 keyB1=changed keyA1=A1 keyB1=changed key2=2 ", load());
+        assertEquals(4, sourceCache.getMissCount());
+        assertEquals(3, sourceCache.size());
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        sourceCache = new EntrySourceCache<>(2, 1 << 20);
+        load();
+        assertEquals(2, sourceCache.size());
+
+        sourceCache = new EntrySourceCache<>(100, 1);
+        load();
+        assertEquals(0, sourceCache.getBytes());
+    }
+
+    @Test
+    public void testLineNumbersAndSources() throws IOException {
+        load();
+        LinkedEntries<Object, Object> linkedEntries = newLinkedEntries();
+        LinkedEntry<Object, Object> entry = linkedEntries.setSource(testUtil.getFile("test")).append().getFirstEntry().getSuccessor().getSuccessor();
+        assertEquals(testUtil.getFile("testB").getAbsolutePath() + " :1: keyB2=B2 successor=keyA1=A1", entry.toString());
+    }
+
+    private String load() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        newLinkedEntries().setSource(testUtil.getFile("test")).append().stream().forEach(e -> sb.append(e.getEntry() + " "));
+        return sb.toString();
+    }
+
+    private LinkedEntries<Object, Object> newLinkedEntries() {
+        return new LinkedEntries<>()
+                .setIncludePredicate(entry -> entry.getKey().toString().contains("include"))
+                .setSourceCache(sourceCache);
+    }
+}
@@ -0,0 +1,121 @@
+package torsete.util.entry;
+
+import org.junit.Test;
+import torsete.util.entry.util.EntryIterator;
+import torsete.util.entry.util.InputStreamEntryIterator;
+import torsete.util.entry.util.ReaderEntryIterator;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies that {@link InputStreamEntryIterator} gives the same entries as {@link ReaderEntryIterator},
+ * also when the lines are split by refilling the buffer
+ */
+public class InputStreamEntryIteratorTest {
+
+    @Test
+    public void testEntries() {
+        verify("");
+        verify("0=a\n1=b\n2=c");
+        verify("0=a\n1=b\n2=c\n");
+        verify("\n\nkey1=a\n\nkey2=b\n  # dfd   \n  ! dfd   \n\"=cde\\\nf\nk3=v3");
+        verify("root=0\n\tkey1=1\n\t\tkey2=2\n\txkey4=4\n.key4=7\n...key5=8\n");
+        verify("key1=a \\\n1\nkey2=b\\\\\nkey3=c \\\n  d \\\ne \\\n");
+        verify("key1=\\\na\nkey2=\\\\ \nkey3=\\/\\\n ");
+        verify("a=0\nb\nc \nd 1\ne  2\n");
+        verify("a=0\r\nb=1\rc=2\r\n\r\nd=3");
+        verify("  \\\n# x\\\nx=1");
+    }
+
+    @Test
+    public void testCharsets() {
+        verify("æøå=ÆØÅ\nkey=værdi \\\n  på to linier\n", StandardCharsets.UTF_8);
+        verify("æøå=ÆØÅ\nkey=værdi \\\n  på to linier\n", StandardCharsets.ISO_8859_1);
+        verify("key=😀 \\\n  and ascii\n", StandardCharsets.UTF_8);
+        verify("key=\\u00e6 æ\n", StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testUnsupportedCharset() {
+        try {
+            new InputStreamEntryIterator<String, String>().setInputStream(new ByteArrayInputStream(new byte[0]), StandardCharsets.UTF_16);
+            fail("Expects an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testDecodingCharsets() {
+        verify("æøå=ÆØÅ\nkey=værdi \\\n  på to linier\n".getBytes(StandardCharsets.ISO_8859_1), new DecodingCharset());
+        try {
+            new InputStreamEntryIterator<String, String>().setInputStream(new ByteArrayInputStream(new byte[0]), Charset.forName("ISO-2022-CN"));
+            fail("Expects an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    private void verify(String content) {
+        verify(content, StandardCharsets.UTF_8);
+    }
+
+    private void verify(String content, Charset charset) {
+        verify(content.getBytes(charset), charset);
+    }
+
+    private void verify(byte[] bytes, Charset charset) {
+        for (int bufferSize : new int[]{1, 2, 3, 5, 8192}) {
+            EntryIterator<String, String> expected = new ReaderEntryIterator<String, String>()
+                    .setReader(new InputStreamReader(new ByteArrayInputStream(bytes), charset))
+                    .open();
+            EntryIterator<String, String> actual = new InputStreamEntryIterator<String, String>()
+                    .setBufferSize(bufferSize)
+                    .setInputStream(new ByteArrayInputStream(bytes), charset)
+                    .open();
+
+            while (expected.hasNext()) {
+                assertEquals("Buffer size " + bufferSize, expected.next().toString(), actual.next().toString());
+            }
+            assertFalse(actual.hasNext());
+            expected.close();
+            actual.close();
+        }
+    }
+
+    /**
+     * ISO-8859-1, which may only decode
+     */
+    private static class DecodingCharset extends Charset {
+        DecodingCharset() {
+            super("x-decoding-latin1", null);
+        }
+
+        @Override
+        public boolean contains(Charset cs) {
+            return cs.equals(this);
+        }
+
+        @Override
+        public CharsetDecoder newDecoder() {
+            return StandardCharsets.ISO_8859_1.newDecoder();
+        }
+
+        @Override
+        public CharsetEncoder newEncoder() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean canEncode() {
+            return false;
+        }
+    }
+}
@@ -5,15 +5,29 @@ import org.junit.Before;
 import org.junit.Test;
 import torsete.util.TestUtil;
 import torsete.util.entry.util.DottedEntryKeyConsumer;
+import torsete.util.entry.util.EntryBatchConsumer;
+import torsete.util.entry.util.StringPool;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static junit.framework.TestCase.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -62,6 +76,10 @@ public class LinkedEntriesTest {
         return (String) properties.get(readKey);
     }
 
+    private List<String> asStrings(Stream<LinkedEntry<Object, Object>> entries) {
+        return entries.map(entry -> entry.getEntry().toString()).collect(Collectors.toList());
+    }
+
     private String asString(Map.Entry<Object, Object> entry) {
         return ("Key:>" + entry.getKey() + "<" + "Value:>" + entry.getValue() + "<").replace('\t', '.');
     }
@@ -221,6 +239,26 @@ public class LinkedEntriesTest {
 
     }
 
+    @Test
+    public void testMapNullKey() {
+        linkedEntries.append(null, "v0")
+                .append("k", "v1")
+                .append(null, "v2");
+        assertEquals(Arrays.asList("v0", "v2"), linkedEntries.map().get(null));
+        assertEquals(Arrays.asList("v0", "v2"), linkedEntries.freeze().map().get(null));
+        assertEquals(Arrays.asList("v1"), linkedEntries.map().get("k"));
+
+        for (int i = 3; i < 1 << 15; i++) {
+            linkedEntries.append(i % 2 == 0 ? null : "k", "v" + i);
+        }
+        HashMap<Object, List<Object>> map = linkedEntries.map();
+        assertEquals(2, map.size());
+        assertEquals(1 << 14, map.get(null).size());
+        assertEquals("v4", map.get(null).get(2));
+        assertEquals("v" + ((1 << 15) - 2), map.get(null).get((1 << 14) - 1));
+        assertEquals(map, linkedEntries.freeze().map());
+    }
+
     @Test
     public void testLoad() throws IOException {
         testUtil.writeFile("testA",
@@ -267,6 +305,575 @@ public class LinkedEntriesTest {
 
     }
 
+    @Test
+    public void testGet() throws IOException {
+        testUtil.writeFile("testA",
+                "k1=v1",
+                "k2=v2",
+                "include=testB",
+                "k3=v3",
+                "");
+        testUtil.writeFile("testB",
+                "bk1=v1",
+                "k3=v4",
+                "");
+
+        linkedEntries.append("k0", "v0");
+        assertEquals("v0", linkedEntries.get("k0").getValue());
+        assertNull(linkedEntries.get("k1"));
+
+        linkedEntries.setSource(testUtil.getFile("testA")).append();
+        linkedEntries.append("k1", "v5");
+
+        assertTrue(linkedEntries.containsKey("bk1"));
+        assertFalse(linkedEntries.containsKey("include"));
+        assertFalse(linkedEntries.containsKey("xx"));
+
+        assertEquals("v3", linkedEntries.get("k3").getValue());
+        assertEquals(Integer.valueOf(3), linkedEntries.get("k3").getLineNumber());
+        List<LinkedEntry<Object, Object>> entries = linkedEntries.getAll("k3");
+        assertEquals(2, entries.size());
+        assertEquals("v4", entries.get(0).getValue());
+        assertEquals("v3", entries.get(1).getValue());
+
+        entries = linkedEntries.getAll("k1");
+        assertEquals(2, entries.size());
+        assertEquals("v1", entries.get(0).getValue());
+        assertEquals("v5", entries.get(1).getValue());
+        assertEquals("v5", linkedEntries.get("k1").getValue());
+
+        assertEquals(0, linkedEntries.getAll("xx").size());
+    }
+
+    @Test
+    public void testGetDottedKeys() throws IOException {
+        testUtil.writeFile("test",
+                "root=0",
+                ".key1=1",
+                "..key2=2",
+                ".key1=3",
+                "");
+
+        linkedEntries.addEntryConsumer(new DottedEntryKeyConsumer<>());
+        linkedEntries.setSource(testUtil.getFile("test")).append();
+
+        assertEquals("2", linkedEntries.get("root.key1.key2").getValue());
+        assertEquals(2, linkedEntries.getAll("root.key1").size());
+        assertFalse(linkedEntries.containsKey(".key1"));
+    }
+
+    @Test
+    public void testColumnarStorage() throws IOException {
+        testUtil.writeFile("test",
+                "root=0",
+                "include=testA",
+                ".key1=1",
+                "..key2=2",
+                ".key1=3",
+                "");
+        testUtil.writeFile("testA",
+                "keyA1=A1",
+                "root=A2",
+                "");
+
+        LinkedEntries<Object, Object> linked = newOrderedEntries()
+                .addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .setSource(testUtil.getFile("test"))
+                .append()
+                .append("k", "v");
+        linkedEntries.setColumnarStorage(true)
+                .addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .setSource(testUtil.getFile("test"))
+                .append()
+                .append("k", "v");
+
+        assertEquals(7, linkedEntries.size());
+        assertEquals(linked.getEntriesAsString(), linkedEntries.getEntriesAsString());
+        assertEquals(linked.map(), linkedEntries.map());
+        assertEquals(linked.properties(), linkedEntries.properties());
+        assertEquals(linked.getLastEntry().toString(), linkedEntries.getLastEntry().toString());
+        verify(linkedEntries.getFirstEntry(),
+                "root=0",
+                "keyA1=A1",
+                "root=A2",
+                "root.key1=1",
+                "root.key1.key2=2",
+                "root.key1=3",
+                "k=v");
+
+        assertEquals("3", linkedEntries.get("root.key1").getValue());
+        assertEquals(2, linkedEntries.getAll("root").size());
+        assertEquals(Integer.valueOf(1), linkedEntries.get("root").getLineNumber());
+        assertEquals(testUtil.getFile("testA").getAbsolutePath(), linkedEntries.get("root").getSource());
+        assertEquals(testUtil.getFile("test").getAbsolutePath(), linkedEntries.get("root.key1").getSource());
+        assertNull(linkedEntries.get("k").getLineNumber());
+        assertNull(linkedEntries.get("k").getSource());
+
+        linkedEntries.get("k").getEntry().setValue("w");
+        assertEquals("w", linkedEntries.getLastEntry().getValue());
+
+        try {
+            linkedEntries.getFirstEntry().setSuccessor(null);
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+        }
+        try {
+            linkedEntries.setColumnarStorage(false);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void testStringPool() throws IOException {
+        testUtil.writeFile("test",
+                "root=v",
+                ".key=v",
+                "include=testA",
+                "root=v",
+                ".key=v",
+                "include=testA",
+                "");
+        testUtil.writeFile("testA",
+                "root=v",
+                "");
+
+        StringPool stringPool = new StringPool(1024, 256);
+        linkedEntries.setStringPool(stringPool)
+                .addEntryConsumer(new DottedEntryKeyConsumer<>().setStringPool(stringPool))
+                .setSource(testUtil.getFile("test"))
+                .append();
+
+        List<LinkedEntry<Object, Object>> roots = linkedEntries.getAll("root");
+        assertEquals(4, roots.size());
+        for (LinkedEntry<Object, Object> root : roots) {
+            assertSame(roots.get(0).getKey(), root.getKey());
+            assertSame(roots.get(0).getValue(), root.getValue());
+        }
+        assertSame(roots.get(1).getSource(), roots.get(3).getSource());
+        List<LinkedEntry<Object, Object>> keys = linkedEntries.getAll("root.key");
+        assertEquals(2, keys.size());
+        assertSame(keys.get(0).getKey(), keys.get(1).getKey());
+        assertTrue(stringPool.getHitCount() > 0);
+        assertTrue(stringPool.getSavedBytes() > 0);
+    }
+
+    @Test
+    public void testAppendAll() throws IOException {
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put("root", "0");
+        for (int i = 0; i < 300; i++) {
+            map.put(".key" + i, "" + i);
+        }
+        int[] batches = {0};
+        linkedEntries.addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .addEntryConsumer((EntryBatchConsumer<Object, Object>) entries -> batches[0]++)
+                .append("first", "1")
+                .appendAll(map.entrySet());
+
+        assertEquals(302, linkedEntries.size());
+        assertEquals(3, batches[0]);
+        assertEquals("299", linkedEntries.get("root.key299").getValue());
+        assertEquals("root.key299", linkedEntries.getLastEntry().getKey());
+        assertEquals("first", linkedEntries.getFirstEntry().getKey());
+        assertEquals(302, linkedEntries.stream().count());
+    }
+
+    @Test
+    public void testReload() throws IOException {
+        testUtil.writeFile("test",
+                "root=0",
+                "include=testA",
+                ".key1=1",
+                "include=testB",
+                "");
+        testUtil.writeFile("testA",
+                "keyA1=A1",
+                "include=testB",
+                "");
+        testUtil.writeFile("testB",
+                "keyB1=B1",
+                "");
+
+        linkedEntries.addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .setSource(testUtil.getFile("test"))
+                .append()
+                .append("k", "v");
+        LinkedEntry<Object, Object> rootEntry = linkedEntries.getFirstEntry();
+        assertEquals("B1", linkedEntries.get("keyB1").getValue());
+
+        assertSame(rootEntry, linkedEntries.reload().getFirstEntry());
+        assertEquals(6, linkedEntries.size());
+
+        testUtil.writeFile("testA",
+                ".keyA1=A1",
+                "keyA2=A2",
+                "include=testB",
+                "");
+        testUtil.getFile("testA").setLastModified(testUtil.getFile("testA").lastModified() - 2000);
+        linkedEntries.reload();
+
+        assertSame(rootEntry, linkedEntries.getFirstEntry());
+        verify(linkedEntries.getFirstEntry(),
+                "root=0",
+                "root.keyA1=A1",
+                "keyA2=A2",
+                "keyB1=B1",
+                "keyB1.key1=1",
+                "keyB1=B1",
+                "k=v");
+        assertEquals(7, linkedEntries.size());
+        assertEquals("v", linkedEntries.getLastEntry().getValue());
+        assertEquals(2, linkedEntries.getAll("keyB1").size());
+
+        testUtil.writeFile("testB",
+                "keyB1=B2",
+                "");
+        testUtil.getFile("testB").setLastModified(testUtil.getFile("testB").lastModified() - 2000);
+        linkedEntries.reload();
+
+        assertEquals("B2", linkedEntries.get("keyB1").getValue());
+        assertEquals("B2", linkedEntries.getAll("keyB1").get(0).getValue());
+        assertEquals(7, linkedEntries.size());
+        assertEquals(7, linkedEntries.stream().count());
+
+        testUtil.getFile("testB").delete();
+        try {
+            linkedEntries.reload();
+            fail("Expects an RuntimeException");
+        } catch (RuntimeException e) {
+            assertEquals(FileNotFoundException.class, e.getCause().getClass());
+        }
+        assertEquals(7, linkedEntries.size());
+        assertEquals("B2", linkedEntries.get("keyB1").getValue());
+    }
+
+    @Test
+    public void testReloadConsumers() throws IOException {
+        testUtil.writeFile("test",
+                "include=testA",
+                ".tail=T",
+                "");
+        testUtil.writeFile("testA",
+                "aaa.bbb=1",
+                "");
+        int[] count = new int[1];
+        linkedEntries.addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .addEntryConsumer(entry -> count[0]++)
+                .setSource(testUtil.getFile("test"))
+                .append()
+                .append(".k", "v");
+        assertEquals("[aaa.bbb=1, aaa.tail=T, aaa.k=v]", asStrings(linkedEntries.stream()).toString());
+        assertEquals(3, count[0]);
+        FrozenEntries<Object, Object> frozenEntries = linkedEntries.freeze();
+        LinkedEntry<Object, Object> keptEntry = linkedEntries.getLastEntry();
+
+        testUtil.writeFile("testA",
+                "xxx.yyy=1",
+                "");
+        testUtil.getFile("testA").setLastModified(testUtil.getFile("testA").lastModified() - 2000);
+        EntryDelta<Object, Object> delta = linkedEntries.reloadDelta();
+
+        LinkedEntries<Object, Object> freshEntries = newOrderedEntries()
+                .addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .setSource(testUtil.getFile("test"))
+                .append();
+        assertEquals("[xxx.yyy=1, xxx.tail=T]", asStrings(freshEntries.stream()).toString());
+        assertEquals("[xxx.yyy=1, xxx.tail=T, aaa.k=v]", asStrings(linkedEntries.stream()).toString());
+        assertEquals(5, count[0]);
+        assertSame(keptEntry, linkedEntries.getLastEntry());
+        assertEquals("[aaa.bbb=1, aaa.tail=T, aaa.k=v]", asStrings(frozenEntries.stream()).toString());
+        assertEquals("[xxx.yyy=1, xxx.tail=T]", asStrings(delta.getAdded().stream()).toString());
+        assertEquals("[aaa.bbb=1, aaa.tail=T]", asStrings(delta.getRemoved().stream()).toString());
+        assertEquals(1, linkedEntries.getAll("xxx.tail").size());
+        assertNull(linkedEntries.get("aaa.tail"));
+
+        assertTrue(linkedEntries.reloadDelta().isEmpty());
+        assertEquals(5, count[0]);
+
+        testUtil.writeFile("testA",
+                "zzz.yyy=1",
+                "");
+        testUtil.getFile("testA").setLastModified(testUtil.getFile("testA").lastModified() - 4000);
+        linkedEntries.reload();
+        assertEquals("[zzz.yyy=1, zzz.tail=T, aaa.k=v]", asStrings(linkedEntries.stream()).toString());
+        assertEquals(7, count[0]);
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        testUtil.writeFile("test",
+                "root=0",
+                "include=testA",
+                ".key1=1",
+                "");
+        testUtil.writeFile("testA",
+                "keyA1=A1",
+                "empty=",
+                "");
+        Path snapshot = testUtil.getFile("snapshot").toPath();
+
+        linkedEntries.addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .setSource(testUtil.getFile("test"))
+                .append()
+                .append("k", null)
+                .writeSnapshot(snapshot);
+
+        LinkedEntries<Object, Object> snapshotEntries = newOrderedEntries().setSource(testUtil.getFile("test"));
+        assertTrue(snapshotEntries.readSnapshot(snapshot));
+        assertEquals(5, snapshotEntries.size());
+        assertEquals(linkedEntries.getEntriesAsString(), snapshotEntries.getEntriesAsString());
+        assertEquals(linkedEntries.getLastEntry().toString(), snapshotEntries.getLastEntry().toString());
+        assertEquals("1", snapshotEntries.get("empty.key1").getValue());
+        assertEquals(Integer.valueOf(0), snapshotEntries.get("keyA1").getLineNumber());
+        assertEquals(testUtil.getFile("testA").getAbsolutePath(), snapshotEntries.get("keyA1").getSource());
+        assertEquals(linkedEntries.getSourceFiles(), snapshotEntries.getSourceFiles());
+
+        LinkedEntries<Object, Object> columnarEntries = newOrderedEntries().setColumnarStorage(true).setSource(testUtil.getFile("test"));
+        assertTrue(columnarEntries.readSnapshot(snapshot));
+        assertEquals(linkedEntries.getEntriesAsString(), columnarEntries.getEntriesAsString());
+
+        assertFalse(newOrderedEntries().setSource(testUtil.getFile("testA")).readSnapshot(snapshot));
+        assertFalse(newOrderedEntries().readSnapshot(snapshot));
+        assertFalse(newOrderedEntries().readSnapshot(testUtil.getFile("missing").toPath()));
+
+        Path snapshotAB = testUtil.getFile("snapshotAB").toPath();
+        newOrderedEntries().setSource(testUtil.getFile("test")).append()
+                .setSource(testUtil.getFile("testA")).append()
+                .writeSnapshot(snapshotAB);
+        assertFalse(newOrderedEntries().setSource(testUtil.getFile("test")).readSnapshot(snapshotAB));
+        assertFalse(newOrderedEntries().setSource(testUtil.getFile("testA")).readSnapshot(snapshotAB));
+
+        testUtil.writeFile("testA",
+                "keyA1=A2",
+                "empty=",
+                "");
+        testUtil.getFile("testA").setLastModified(testUtil.getFile("testA").lastModified() - 2000);
+        assertFalse(newOrderedEntries().setSource(testUtil.getFile("test")).readSnapshot(snapshot));
+
+        snapshotEntries.reload();
+        assertEquals("A2", snapshotEntries.get("keyA1").getValue());
+        assertEquals(5, snapshotEntries.size());
+    }
+
+    @Test
+    public void testCorruptSnapshot() throws IOException {
+        Path snapshot = testUtil.getFile("snapshot").toPath();
+        linkedEntries.append("k", "v").writeSnapshot(snapshot);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        assertTrue(newOrderedEntries().readSnapshot(snapshot));
+
+        // String count at 8, string lengths at 12 and 17, entry count at 22, the entry at 26,
+        // and the root source at bytes.length - 30: Source id, file flag, length, last modified, part count and one run
+        verifyCorrupt(snapshot, bytes, 8, -1);
+        verifyCorrupt(snapshot, bytes, 8, Integer.MAX_VALUE);
+        verifyCorrupt(snapshot, bytes, 12, -5);
+        verifyCorrupt(snapshot, bytes, 22, Integer.MAX_VALUE);
+        verifyCorrupt(snapshot, bytes, 26, 5);
+        verifyCorrupt(snapshot, bytes, bytes.length - 30, 7);
+        verifyCorrupt(snapshot, bytes, bytes.length - 9, Integer.MAX_VALUE);
+        verifyCorrupt(snapshot, bytes, bytes.length - 4, 2);
+        verifyCorrupt(snapshot, bytes, bytes.length - 4, -1);
+        bytes[bytes.length - 26] = 1;
+        verifyCorrupt(snapshot, bytes, 0, 0x4C45534E);
+        verifyCorrupt(snapshot, Arrays.copyOf(bytes, bytes.length - 1), 0, 0x4C45534E);
+    }
+
+    /**
+     * Verifies that a snapshot with an int replaced is not read
+     */
+    private void verifyCorrupt(Path snapshot, byte[] bytes, int position, int value) throws IOException {
+        byte[] corruptBytes = bytes.clone();
+        ByteBuffer.wrap(corruptBytes).putInt(position, value);
+        Files.write(snapshot, corruptBytes);
+        LinkedEntries<Object, Object> snapshotEntries = newOrderedEntries();
+        try {
+            snapshotEntries.readSnapshot(snapshot);
+            fail("Expects an IOException");
+        } catch (IOException e) {
+        }
+        assertEquals(0, snapshotEntries.size());
+    }
+
+    @Test
+    public void testCharsetSources() throws IOException {
+        Files.write(testUtil.getFile("test").toPath(), String.join("\n",
+                "key1=æøå",
+                ".key2=\\",
+                "  værdi",
+                "").getBytes(StandardCharsets.UTF_8));
+
+        linkedEntries.addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .setSource(testUtil.getInputStream("test"), StandardCharsets.UTF_8)
+                .append();
+        assertEquals("[key1=æøå, key1.key2=værdi]", asStrings(linkedEntries.stream()).toString());
+
+        LinkedEntries<Object, Object> fileEntries = newOrderedEntries()
+                .addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .setSource(testUtil.getFile("test"), StandardCharsets.UTF_8)
+                .append();
+        assertEquals(linkedEntries.getEntriesAsString().replace(" :", ""),
+                fileEntries.getEntriesAsString().replace(testUtil.getFile("test").getAbsolutePath() + " :", ""));
+    }
+
+    @Test
+    public void testSwitchSources() throws IOException {
+        testUtil.writeFile("test",
+                "k1=v1",
+                "");
+        linkedEntries.setSource(testUtil.getFile("test")).append()
+                .setSource(new ByteArrayInputStream("k2=v2\nk3=v3\n".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8).append()
+                .setSource("k4=v4").append()
+                .setSource("").append()
+                .setSource(testUtil.getFile("test").toPath(), StandardCharsets.UTF_8).append()
+                .setSource(new ByteArrayInputStream("k5=v5".getBytes(StandardCharsets.UTF_8))).append()
+                .setSource(new StringReader("k6=v6")).append();
+        assertEquals("[k1=v1, k2=v2, k3=v3, k4=v4, k1=v1, k5=v5, k6=v6]", asStrings(linkedEntries.stream()).toString());
+        assertEquals(7, linkedEntries.size());
+        assertEquals("k6=v6", linkedEntries.getLastEntry().getEntry().toString());
+    }
+
+    @Test
+    public void testSubtree() throws IOException {
+        linkedEntries.addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .setSource(String.join("\n",
+                        "aaa=1",
+                        ".bbb=2",
+                        "..ccc=3",
+                        "aaa.bbbb=4",
+                        "aab=5",
+                        "aaa.bbb=6",
+                        ".bcd.e=7",
+                        ""))
+                .append();
+
+        assertEquals("[aaa.bbb=2, aaa.bbb.ccc=3, aaa.bbb=6]", asStrings(linkedEntries.getSubtree("aaa.bbb").stream()).toString());
+        assertEquals(6, linkedEntries.getSubtree("aaa").size());
+        assertEquals(0, linkedEntries.getSubtree("aaa.bb").size());
+        assertEquals(0, linkedEntries.getSubtree("xxx.bbb").size());
+
+        assertEquals("[aaa.bbb=2, aaa.bbb.ccc=3, aaa.bbbb=4, aaa.bbb=6, aaa.bcd.e=7]", asStrings(linkedEntries.getByPrefix("aaa.b").stream()).toString());
+        assertEquals("[aaa.bbbb=4]", asStrings(linkedEntries.getByPrefix("aaa.bbbb").stream()).toString());
+        assertEquals("[aaa=1, aaa.bbb=2, aaa.bbb.ccc=3, aaa.bbbb=4, aab=5, aaa.bbb=6, aaa.bcd.e=7]", asStrings(linkedEntries.getByPrefix("aa").stream()).toString());
+        assertEquals(5, linkedEntries.getByPrefix("aaa.").size());
+        assertEquals(7, linkedEntries.getByPrefix("").size());
+        assertEquals(0, linkedEntries.getByPrefix("b").size());
+
+        linkedEntries.append("aaa.bbb.ddd", "8");
+        assertEquals("[aaa.bbb=2, aaa.bbb.ccc=3, aaa.bbb=6, aaa.bbb.ddd=8]", asStrings(linkedEntries.getSubtree("aaa.bbb").stream()).toString());
+        assertEquals(6, linkedEntries.getByPrefix("aaa.b").size());
+        assertEquals("[aaa.bbb=2, aaa.bbb.ccc=3, aaa.bbb=6, aaa.bbb.ddd=8]", asStrings(linkedEntries.freeze().getSubtree("aaa.bbb").stream()).toString());
+        assertEquals(8, linkedEntries.freeze().getByPrefix("a").size());
+    }
+
+    @Test
+    public void testFreeze() throws IOException {
+        testUtil.writeFile("test",
+                "root=0",
+                "include=testA",
+                "key1=1",
+                "");
+        testUtil.writeFile("testA",
+                "keyA1=A1",
+                "");
+
+        linkedEntries.setSource(testUtil.getFile("test"))
+                .append();
+        FrozenEntries<Object, Object> frozen = linkedEntries.freeze();
+        assertSame(frozen, linkedEntries.freeze());
+
+        linkedEntries.append("k", "v");
+        testUtil.writeFile("testA",
+                "keyA1=A2",
+                "keyA2=A2",
+                "");
+        testUtil.getFile("testA").setLastModified(testUtil.getFile("testA").lastModified() - 2000);
+        linkedEntries.reload();
+        assertEquals(5, linkedEntries.size());
+        assertNotSame(frozen, linkedEntries.freeze());
+
+        assertEquals(3, frozen.size());
+        assertEquals("[root=0, keyA1=A1, key1=1]", asStrings(frozen.stream()).toString());
+        assertEquals("[root=0, keyA1=A1, key1=1]", asStrings(frozen.parallelStream()).toString());
+        assertEquals("A1", frozen.get("keyA1").getValue());
+        assertFalse(frozen.containsKey("k"));
+        assertEquals("1", frozen.getLastEntry().getValue());
+        assertEquals("root", frozen.getFirstEntry().getKey());
+        assertEquals("[A1]", frozen.map().get("keyA1").toString());
+        assertEquals("[root=0, keyA1=A2, keyA2=A2, key1=1, k=v]", asStrings(linkedEntries.freeze().stream()).toString());
+
+        assertEquals(0, newOrderedEntries().freeze().size());
+        assertNull(newOrderedEntries().freeze().getFirstEntry());
+    }
+
+    @Test
+    public void testColumnarFreeze() throws IOException {
+        linkedEntries.setColumnarStorage(true);
+        for (int i = 0; i < 16; i++) {
+            linkedEntries.append("k" + i, "v" + i);
+        }
+        FrozenEntries<Object, Object> frozen = linkedEntries.freeze();
+        linkedEntries.append("k16", "v16");
+
+        assertEquals(16, frozen.size());
+        assertEquals(16, frozen.stream().count());
+        assertEquals("v15", frozen.getLastEntry().getValue());
+        assertNull(frozen.getLastEntry().getSuccessor());
+        assertNull(frozen.get("k16"));
+        assertEquals(17, linkedEntries.freeze().size());
+    }
+
+    @Test
+    public void testConcurrentFreeze() throws Exception {
+        int count = 100000;
+        AtomicReference<FrozenEntries<Object, Object>> current = new AtomicReference<>(linkedEntries.freeze());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> reader = executor.submit(() -> {
+                int views = 0;
+                FrozenEntries<Object, Object> frozen;
+                do {
+                    frozen = current.get();
+                    long size = frozen.size();
+                    int[] expected = {0};
+                    frozen.stream().forEach(entry -> assertEquals("v" + expected[0]++, entry.getValue()));
+                    assertEquals(size, expected[0]);
+                    assertEquals(size, frozen.parallelStream().count());
+                    if (size > 0) {
+                        assertEquals("v" + (size - 1), frozen.get("k" + (size - 1)).getValue());
+                    }
+                    views++;
+                } while (frozen.size() < count);
+                return views;
+            });
+            executor.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    linkedEntries.append("k" + i, "v" + i);
+                    if (i % 1000 == 999) {
+                        current.set(linkedEntries.freeze());
+                    }
+                }
+            }).get();
+            assertTrue(reader.get() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testColumnarReload() throws IOException {
+        testUtil.writeFile("test",
+                "root=0",
+                "");
+
+        linkedEntries.setColumnarStorage(true).setSource(testUtil.getFile("test")).append();
+        try {
+            linkedEntries.reload();
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
     @Test
     public void testLoad2() throws IOException {
         testUtil.writeFile("test",
@@ -365,6 +972,157 @@ public class LinkedEntriesTest {
 
     }
 
+    @Test
+    public void testMappedInclude() throws IOException {
+        testUtil.writeFile("test",
+                "key1=1",
+                "include=testA",
+                "key2=2",
+                "key3=3",
+                "");
+        testUtil.writeFile("testA",
+                "include=testB",
+                "keyA1=A1",
+                "include=testB",
+                "keyA2=A2",
+                "");
+        testUtil.writeFile("testB",
+                "keyB1=B1",
+                "keyB2=B2",
+                "");
+
+        LinkedEntry<Object, Object> firstEntry = linkedEntries
+                .setSource(testUtil.getFile("test").toPath(), StandardCharsets.UTF_8)
+                .append()
+                .getFirstEntry();
+
+        verify(firstEntry, "key1=1",
+                "keyB1=B1",
+                "keyB2=B2",
+                "keyA1=A1",
+                "keyB1=B1",
+                "keyB2=B2",
+                "keyA2=A2",
+                "key2=2",
+                "key3=3");
+        assertEquals(testUtil.getFile("testB").getAbsolutePath(), firstEntry.getSuccessor().getSource());
+        assertEquals(Integer.valueOf(1), firstEntry.getSuccessor().getSuccessor().getLineNumber());
+    }
+
+    @Test
+    public void testMappedFailingInclude() throws IOException {
+        testUtil.writeFile("test",
+                "key1=1",
+                "include=testA",
+                "");
+
+        try {
+            linkedEntries.setSource(testUtil.getFile("test").toPath(), StandardCharsets.UTF_8).append();
+            fail("Expects an RuntimeException");
+        } catch (RuntimeException e) {
+            assertEquals(FileNotFoundException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testPrefetchedInclude() throws IOException {
+        testUtil.writeFile("test",
+                "key1=1",
+                "include=testA",
+                ".key2=2",
+                "key3=3",
+                "");
+        testUtil.writeFile("testA",
+                "include=testB",
+                ".keyA1=A1",
+                "include=testB",
+                "keyA2=A2",
+                "include=testC",
+                "");
+        testUtil.writeFile("testB",
+                "keyB1=B1",
+                ".keyB2=B2",
+                "");
+        testUtil.writeFile("testC",
+                "include=testD",
+                "");
+        testUtil.writeFile("testD",
+                "keyD=d",
+                "");
+
+        String expected = newOrderedEntries()
+                .addEntryConsumer(new DottedEntryKeyConsumer<>())
+                .setSource(testUtil.getFile("test"))
+                .append()
+                .getEntriesAsString();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            LinkedEntries<Object, Object> prefetching = newOrderedEntries()
+                    .setIncludeExecutor(executor)
+                    .addEntryConsumer(new DottedEntryKeyConsumer<>())
+                    .setSource(testUtil.getFile("test"))
+                    .append();
+            assertEquals(expected, prefetching.getEntriesAsString());
+            assertEquals(10, prefetching.size());
+            verify(prefetching.getFirstEntry(), "key1=1",
+                    "keyB1=B1",
+                    "keyB1.keyB2=B2",
+                    "keyB1.keyA1=A1",
+                    "keyB1=B1",
+                    "keyB1.keyB2=B2",
+                    "keyA2=A2",
+                    "keyD=d",
+                    "keyD.key2=2",
+                    "key3=3");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrefetchedFailingInclude() throws IOException {
+        testUtil.writeFile("test",
+                "key1=1",
+                "include=testA",
+                "");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            linkedEntries.setIncludeExecutor(executor).setSource(testUtil.getFile("test")).append();
+            fail("Expects an RuntimeException");
+        } catch (RuntimeException e) {
+            assertEquals(FileNotFoundException.class, e.getCause().getClass());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrefetchedSelfReferencingInclude() throws IOException {
+        testUtil.writeFile("test",
+                "key1=1",
+                "include=testA",
+                "");
+        testUtil.writeFile("testA",
+                "keyA=A",
+                "include=testB",
+                "");
+        testUtil.writeFile("testB",
+                "include=testA",
+                "");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            linkedEntries.setIncludeExecutor(executor).setSource(testUtil.getFile("test")).append();
+            fail("Expects an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("is self referencing"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testFailingInclude() throws IOException {
         testUtil.writeFile("test",
@@ -455,6 +1213,7 @@ public class LinkedEntriesTest {
             assertEquals("" + i, expected[i++], linkedEntry.getEntry().toString());
             linkedEntry = linkedEntry.getSuccessor();
         }
+        assertEquals(expected.length, i);
     }
 
 
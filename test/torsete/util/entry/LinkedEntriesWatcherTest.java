@@ -0,0 +1,199 @@
+package torsete.util.entry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import torsete.util.TestUtil;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertTrue;
+
+/**
+ * Verifies reloading of changed files and the published entry deltas
+ */
+public class LinkedEntriesWatcherTest {
+    private TestUtil testUtil;
+    private LinkedEntries<Object, Object> linkedEntries;
+
+    @Before
+    public void setUp() throws IOException {
+        testUtil = new TestUtil(this);
+        testUtil.setupTestFolder();
+        testUtil.writeFile("test",
+                "key1=1",
+                "include=testA",
+                "key2=2",
+                "");
+        testUtil.writeFile("testA",
+                "keyA1=A1",
+                "keyA2=A2",
+                "keyA2=A3",
+                "");
+        linkedEntries = new LinkedEntries<>()
+                .setIncludePredicate(entry -> entry.getKey().toString().contains("include"))
+                .setSource(testUtil.getFile("test"))
+                .append();
+    }
+
+    @After
+    public void tearDown() {
+        testUtil.teardownTestFolder();
+    }
+
+    @Test
+    public void testReloadDelta() {
+        assertTrue(linkedEntries.reloadDelta().isEmpty());
+        assertEquals(2, linkedEntries.getSourceFiles().size());
+
+        testUtil.writeFile("testA",
+                "keyA1=A1",
+                "keyA2=X",
+                "keyA3=A4",
+                "");
+        testUtil.getFile("testA").setLastModified(testUtil.getFile("testA").lastModified() - 2000);
+        EntryDelta<Object, Object> delta = linkedEntries.reloadDelta();
+
+        assertEquals("[keyA3=A4]", asString(delta.getAdded()));
+        assertEquals("[keyA2=A3]", asString(delta.getRemoved()));
+        assertEquals("[keyA2=X]", asString(delta.getChanged()));
+        assertEquals("[keyA2=A2]", asString(delta.getReplaced()));
+        assertEquals("X", linkedEntries.get("keyA2").getValue());
+    }
+
+    @Test
+    public void testWatch() throws Exception {
+        BlockingQueue<EntryDelta<Object, Object>> deltas = new LinkedBlockingQueue<>();
+        try (LinkedEntriesWatcher<Object, Object> watcher = new LinkedEntriesWatcher<>(linkedEntries)
+                .setDebounceMillis(50)
+                .addListener(deltas::add)
+                .start()) {
+            testUtil.writeFile("testB",
+                    "keyB1=B1",
+                    "");
+            testUtil.writeFile("testA",
+                    "keyA1=A1",
+                    "keyA2=A2",
+                    "keyA2=A3",
+                    "include=testB",
+                    "");
+
+            EntryDelta<Object, Object> delta = deltas.poll(10, TimeUnit.SECONDS);
+            assertNotNull(delta);
+            assertEquals("[keyB1=B1]", asString(delta.getAdded()));
+            assertEquals(3, linkedEntries.getSourceFiles().size());
+
+            testUtil.writeFile("testB",
+                    "keyB1=B22",
+                    "");
+            delta = deltas.poll(10, TimeUnit.SECONDS);
+            assertNotNull(delta);
+            assertEquals("[keyB1=B22]", asString(delta.getChanged()));
+            synchronized (linkedEntries) {
+                assertEquals("B22", linkedEntries.get("keyB1").getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testListenerException() throws Exception {
+        BlockingQueue<EntryDelta<Object, Object>> deltas = new LinkedBlockingQueue<>();
+        BlockingQueue<RuntimeException> exceptions = new LinkedBlockingQueue<>();
+        try (LinkedEntriesWatcher<Object, Object> watcher = new LinkedEntriesWatcher<>(linkedEntries)
+                .setDebounceMillis(50)
+                .addListener(delta -> {
+                    throw new IllegalStateException("listener");
+                })
+                .addListener(deltas::add)
+                .setExceptionHandler(exceptions::add)
+                .start()) {
+            testUtil.writeFile("testA",
+                    "keyA1=X1",
+                    "");
+            assertNotNull(deltas.poll(10, TimeUnit.SECONDS));
+            assertEquals("listener", exceptions.poll(10, TimeUnit.SECONDS).getMessage());
+
+            testUtil.writeFile("testA",
+                    "keyA1=X22",
+                    "");
+            EntryDelta<Object, Object> delta = deltas.poll(10, TimeUnit.SECONDS);
+            assertNotNull(delta);
+            assertEquals("[keyA1=X22]", asString(delta.getChanged()));
+            assertEquals("listener", exceptions.poll(10, TimeUnit.SECONDS).getMessage());
+        }
+    }
+
+    @Test
+    public void testBusyFolder() throws Exception {
+        BlockingQueue<EntryDelta<Object, Object>> deltas = new LinkedBlockingQueue<>();
+        try (LinkedEntriesWatcher<Object, Object> watcher = new LinkedEntriesWatcher<>(linkedEntries)
+                .setDebounceMillis(200)
+                .setMaxDelayMillis(60000)
+                .addListener(deltas::add)
+                .start()) {
+            Thread writer = startWriter("other");
+            try {
+                Thread.sleep(300);
+                testUtil.writeFile("testA",
+                        "keyA1=X1",
+                        "");
+                EntryDelta<Object, Object> delta = deltas.poll(3, TimeUnit.SECONDS);
+                assertNotNull(delta);
+                assertEquals("[keyA1=X1]", asString(delta.getChanged()));
+            } finally {
+                writer.interrupt();
+                writer.join();
+            }
+        }
+    }
+
+    @Test
+    public void testMaxDelay() throws Exception {
+        BlockingQueue<EntryDelta<Object, Object>> deltas = new LinkedBlockingQueue<>();
+        try (LinkedEntriesWatcher<Object, Object> watcher = new LinkedEntriesWatcher<>(linkedEntries)
+                .setDebounceMillis(200)
+                .setMaxDelayMillis(300)
+                .addListener(deltas::add)
+                .start()) {
+            Thread writer = startWriter("testA");
+            try {
+                assertNotNull(deltas.poll(3, TimeUnit.SECONDS));
+                assertTrue(writer.isAlive());
+            } finally {
+                writer.interrupt();
+                writer.join();
+            }
+        }
+    }
+
+    /**
+     * @return A thread writing the file every 20 milliseconds for at least 5 seconds, or until it is interrupted
+     */
+    private Thread startWriter(String fileName) {
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 250 && !Thread.currentThread().isInterrupted(); i++) {
+                testUtil.writeFile(fileName,
+                        "keyA1=W" + i,
+                        "");
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        writer.start();
+        return writer;
+    }
+
+    private String asString(List<LinkedEntry<Object, Object>> entries) {
+        return entries.stream().map(entry -> entry.getEntry().toString()).collect(Collectors.joining(", ", "[", "]"));
+    }
+}
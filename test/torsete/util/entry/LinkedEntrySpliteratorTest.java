@@ -0,0 +1,105 @@
+package torsete.util.entry;
+
+import org.junit.Test;
+import torsete.util.entry.util.LinkedEntrySpliterator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies splitting and parallel streaming of appended entries
+ */
+public class LinkedEntrySpliteratorTest {
+
+    @Test
+    public void test0Entries() {
+        Spliterator<LinkedEntry<String, String>> spliterator = new LinkedEntrySpliterator<>(null, 0);
+        assertEquals(0, spliterator.estimateSize());
+        assertFalse(spliterator.tryAdvance(e -> {
+        }));
+        assertNull(spliterator.trySplit());
+    }
+
+    @Test
+    public void testSizeLimitsTraversal() {
+        LinkedEntries<String, String> linkedEntries = newLinkedEntries(10);
+        List<String> keys = new ArrayList<>();
+        new LinkedEntrySpliterator<>(linkedEntries.getFirstEntry(), 3).forEachRemaining(e -> keys.add(e.getKey()));
+        assertEquals("[k0, k1, k2]", keys.toString());
+    }
+
+    @Test
+    public void testSplit() {
+        LinkedEntries<String, String> linkedEntries = newLinkedEntries(5000);
+        Spliterator<LinkedEntry<String, String>> spliterator = new LinkedEntrySpliterator<>(linkedEntries.getFirstEntry(), 5000);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+
+        Spliterator<LinkedEntry<String, String>> prefix = spliterator.trySplit();
+        assertEquals(5000, prefix.estimateSize() + spliterator.estimateSize());
+
+        List<String> keys = new ArrayList<>();
+        prefix.forEachRemaining(e -> keys.add(e.getKey()));
+        spliterator.forEachRemaining(e -> keys.add(e.getKey()));
+        assertEquals(5000, keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals("k" + i, keys.get(i));
+        }
+    }
+
+    @Test
+    public void testParallelStream() {
+        LinkedEntries<String, String> linkedEntries = newLinkedEntries(100000);
+        assertEquals(100000, linkedEntries.size());
+        assertTrue(linkedEntries.parallelStream().isParallel());
+
+        List<String> sequential = linkedEntries.stream().map(LinkedEntry::getKey).collect(Collectors.toList());
+        List<String> parallel = linkedEntries.parallelStream().map(LinkedEntry::getKey).collect(Collectors.toList());
+        assertEquals(sequential, parallel);
+        assertEquals(100000, linkedEntries.parallelStream().count());
+    }
+
+    @Test
+    public void testParallelMapAndProperties() {
+        LinkedEntries<String, String> linkedEntries = new LinkedEntries<>();
+        for (int i = 0; i < 100000; i++) {
+            linkedEntries.append("k" + (i % 1000), "v" + i);
+        }
+
+        HashMap<String, List<String>> map = linkedEntries.map();
+        assertEquals(1000, map.size());
+        List<String> values = map.get("k7");
+        assertEquals(100, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals("v" + (i * 1000 + 7), values.get(i));
+        }
+
+        Properties properties = linkedEntries.properties();
+        assertEquals(1000, properties.size());
+        assertEquals("v99007", properties.get("k7"));
+    }
+
+    @Test
+    public void testAppendAfterStream() {
+        LinkedEntries<String, String> linkedEntries = newLinkedEntries(3);
+        assertEquals(3, linkedEntries.stream().count());
+        linkedEntries.append("k3", "v3");
+        assertEquals(4, linkedEntries.stream().count());
+    }
+
+    private LinkedEntries<String, String> newLinkedEntries(int size) {
+        LinkedEntries<String, String> linkedEntries = new LinkedEntries<>();
+        for (int i = 0; i < size; i++) {
+            linkedEntries.append("k" + i, "v" + i);
+        }
+        return linkedEntries;
+    }
+}
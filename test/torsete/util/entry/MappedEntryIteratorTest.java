@@ -0,0 +1,96 @@
+package torsete.util.entry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import torsete.util.TestUtil;
+import torsete.util.entry.util.EntryIterator;
+import torsete.util.entry.util.MappedEntryIterator;
+import torsete.util.entry.util.ReaderEntryIterator;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Verifies that {@link MappedEntryIterator} gives the same entries as {@link ReaderEntryIterator}
+ */
+public class MappedEntryIteratorTest {
+    private TestUtil testUtil;
+    private int testcount;
+
+    @Before
+    public void setUp() {
+        testUtil = new TestUtil(this);
+        testUtil.setupTestFolder();
+    }
+
+    @After
+    public void tearDown() {
+        testUtil.teardownTestFolder();
+    }
+
+    @Test
+    public void testEntries() throws IOException {
+        verify("");
+        verify("0=a\n1=b\n2=c");
+        verify("0=a\n1=b\n2=c\n");
+        verify("\n\nkey1=a\n\nkey2=b\n  # dfd   \n  ! dfd   \n\"=cde\\\nf\nk3=v3");
+        verify("root=0\n\tkey1=1\n\t\tkey2=2\n\txkey4=4\n.key4=7\n...key5=8\n");
+        verify("key1=a \\\n1\nkey2=b\\\\\nkey3=c \\\n  d \\\ne \\\n");
+        verify("key1=\\\na\nkey2=\\\\ \nkey3=\\/\\\n ");
+        verify("a=0\nb\nc \nd 1\ne  2\n");
+        verify("a=0\r\nb=1\rc=2\r\n\r\nd=3");
+        verify("  \\\n# x\\\nx=1");
+    }
+
+    @Test
+    public void testCharsets() throws IOException {
+        verify("æøå=ÆØÅ\nkey=værdi \\\n  på to linier\n", StandardCharsets.UTF_8);
+        verify("æøå=ÆØÅ\nkey=værdi \\\n  på to linier\n", StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void testUnsupportedCharset() throws IOException {
+        write("test", "a=b", StandardCharsets.UTF_8);
+        try {
+            new MappedEntryIterator<String, String>().setFile(testUtil.getFile("test"), StandardCharsets.UTF_16);
+            fail("Expects an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    private void verify(String content) throws IOException {
+        verify(content, StandardCharsets.UTF_8);
+    }
+
+    private void verify(String content, Charset charset) throws IOException {
+        String filename = "verify" + testcount++;
+        write(filename, content, charset);
+
+        EntryIterator<String, String> expected = new ReaderEntryIterator<String, String>()
+                .setReader(new InputStreamReader(new FileInputStream(testUtil.getFile(filename)), charset))
+                .open();
+        EntryIterator<String, String> actual = new MappedEntryIterator<String, String>()
+                .setFile(testUtil.getFile(filename), charset)
+                .open();
+
+        while (expected.hasNext()) {
+            assertEquals(expected.next().toString(), actual.next().toString());
+        }
+        assertFalse(actual.hasNext());
+        expected.close();
+        actual.close();
+    }
+
+    private void write(String filename, String content, Charset charset) throws IOException {
+        Files.write(testUtil.getFile(filename).toPath(), content.getBytes(charset));
+    }
+}
@@ -0,0 +1,171 @@
+package torsete.util.entry;
+
+import org.junit.Before;
+import org.junit.Test;
+import torsete.util.entry.util.PropertiesLineLexer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that {@link PropertiesLineLexer} gives the same (key,value) pair as {@link Properties}
+ */
+public class PropertiesLineLexerTest {
+
+    private PropertiesLineLexer lexer;
+
+    @Before
+    public void setUp() {
+        lexer = new PropertiesLineLexer();
+    }
+
+    @Test
+    public void testReaderEntryIteratorLines() {
+        verify("0=a",
+                "1=b",
+                "2=c");
+        verify("",
+                "",
+                "key1=a",
+                "",
+                "key2=b",
+                "  # dfd   ",
+                "  ! dfd   ",
+                "\"=cde\\",
+                "\"=cde \\",
+                "f",
+                "k3=v3");
+        verify("root=0",
+                "\tkey1=1",
+                "\t\tkey2=2",
+                "\t\tkey3=3",
+                "\txkey4=4",
+                "\t\t\tkey5=5",
+                "2root=6",
+                ".key4=7",
+                "...key5=8",
+                "root2=9",
+                "\tkey4=10",
+                "\t\t\tkxxxey5=11",
+                "");
+        verify("test",
+                "key1=a \\",
+                "1",
+                "key2=b\\\\",
+                "key3=c \\",
+                "  d \\",
+                "e \\",
+                "");
+    }
+
+    @Test
+    public void testSeparators() {
+        verify("a=0",
+                "b",
+                "c ",
+                "d 1",
+                "e  2",
+                "f:3",
+                "g : 4",
+                "h = = 5",
+                "i\t=\t6",
+                "j\f7",
+                "=8",
+                ":9",
+                "k=",
+                "x\ty\t\t=value");
+    }
+
+    @Test
+    public void testEscapes() {
+        verify("a\\=b=c",
+                "a\\:b:c",
+                "a\\ b c",
+                "a=\\t\\n\\r\\f",
+                "a=\\u0041\\u00e6\\u00F8",
+                "\\u0041=b",
+                "a=\\q\\\\",
+                "a=\\/",
+                "a=b\\",
+                "a=b\\\\\\",
+                "  \\",
+                "\\#a=b",
+                "\\!a=b");
+    }
+
+    @Test
+    public void testComments() {
+        assertFalse(lexer.lex("# comment"));
+        assertFalse(lexer.lex("! comment"));
+        assertFalse(lexer.lex("  \t# comment"));
+        assertFalse(lexer.lex("   "));
+        assertFalse(lexer.lex(""));
+        assertTrue(lexer.lex("a#=b"));
+        assertEquals("a#", lexer.getKey());
+    }
+
+    @Test
+    public void testMalformedUnicode() {
+        verify("a=\\u004",
+                "a=\\u00x1",
+                "\\u12=b");
+    }
+
+    @Test
+    public void testRange() {
+        assertTrue(lexer.lex("xxkey=valuexx", 2, 11));
+        assertEquals("key", lexer.getKey());
+        assertEquals("value", lexer.getValue());
+    }
+
+    @Test
+    public void testRandomLines() {
+        String characters = "ab =:\\\t\f#!u0Aft nr";
+        Random random = new Random(4711);
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                sb.append(characters.charAt(random.nextInt(characters.length())));
+            }
+            verify(sb.toString());
+        }
+    }
+
+    private void verify(String... lines) {
+        for (String line : lines) {
+            assertEquals(line, expected(line), actual(line));
+        }
+    }
+
+    private String expected(String line) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new StringReader(line));
+        } catch (IllegalArgumentException e) {
+            return "Malformed";
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (properties.size() == 0) {
+            return null;
+        }
+        Map.Entry<Object, Object> entry = properties.entrySet().iterator().next();
+        return entry.getKey() + "=" + entry.getValue();
+    }
+
+    private String actual(String line) {
+        try {
+            return lexer.lex(line) ? lexer.getKey() + "=" + lexer.getValue() : null;
+        } catch (IllegalArgumentException e) {
+            return "Malformed";
+        }
+    }
+}
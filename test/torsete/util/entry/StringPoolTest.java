@@ -0,0 +1,55 @@
+package torsete.util.entry;
+
+import org.junit.Test;
+import torsete.util.entry.util.StringPool;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StringPoolTest {
+
+    @Test
+    public void testIntern() {
+        StringPool stringPool = new StringPool(16, 10);
+        String a = stringPool.intern(new StringBuilder("abc"));
+        assertEquals("abc", a);
+        assertSame(a, stringPool.intern(new StringBuilder("abc")));
+        assertSame(a, stringPool.intern(new String("abc")));
+        assertSame(a, stringPool.intern("xabcx".toCharArray(), 1, 3));
+        assertEquals(3, stringPool.getHitCount());
+        assertEquals(1, stringPool.getMissCount());
+        assertEquals(0.75, stringPool.getHitRate(), 0.0);
+        assertEquals(3 * (40 + 2 * 3), stringPool.getSavedBytes());
+        assertNull(stringPool.intern((String) null));
+    }
+
+    @Test
+    public void testMaxLength() {
+        StringPool stringPool = new StringPool(16, 3);
+        String s = stringPool.intern(new StringBuilder("abcd"));
+        assertEquals("abcd", s);
+        assertNotSame(s, stringPool.intern(new StringBuilder("abcd")));
+        assertEquals(0, stringPool.getHitCount());
+        assertEquals(0, stringPool.getMissCount());
+    }
+
+    @Test
+    public void testBounded() {
+        StringPool stringPool = new StringPool(4, 10);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("s" + i, stringPool.intern(new StringBuilder("s" + i)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("s" + i, stringPool.intern("s" + i));
+        }
+        assertEquals(2000, stringPool.getHitCount() + stringPool.getMissCount());
+        assertEquals(0.0, new StringPool(4, 10).getHitRate(), 0.0);
+
+        String s = stringPool.intern("x");
+        assertSame(s, stringPool.intern("x"));
+        stringPool.clear();
+        assertNotSame(s, stringPool.intern(new String("x")));
+    }
+}
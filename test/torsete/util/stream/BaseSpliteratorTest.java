@@ -2,6 +2,9 @@ package torsete.util.stream;
 
 import org.junit.Test;
 
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
@@ -85,4 +88,92 @@ public class BaseSpliteratorTest {
         assertTrue(onCloseDone1[0]);
     }
 
+    @Test
+    public void testEmpty() {
+        int[] onCloseCount = {0};
+        Stream<Character> stream = new BaseSpliterator<Character>()
+                .setNextSupplier(() -> {
+                    throw new IllegalStateException("No elements");
+                })
+                .setIsLastSupplier(() -> true)
+                .setOnClose(() -> onCloseCount[0]++)
+                .stream();
+
+        assertEquals(0, stream.count());
+        stream.close();
+        assertEquals(1, onCloseCount[0]);
+
+        assertEquals(0, new BaseSpliterator<Character>().stream().count());
+    }
+
+    @Test
+    public void testCloseOnce() {
+        char[] chars = {'a', 'b', 'c'};
+        int[] onCloseCount = {0};
+        int[] i = new int[1];
+        Stream<Character> stream = new BaseSpliterator<Character>()
+                .setNextSupplier(() -> chars[i[0]++])
+                .setIsLastSupplier(() -> i[0] == chars.length)
+                .setOnClose(() -> onCloseCount[0]++)
+                .stream();
+
+        assertEquals("ab", stream.limit(2).map(String::valueOf).collect(Collectors.joining()));
+        assertEquals(0, onCloseCount[0]);
+        stream.close();
+        stream.close();
+        assertEquals(1, onCloseCount[0]);
+    }
+
+    @Test
+    public void testBatchSupplier() {
+        int[] i = new int[1];
+        boolean[] onCloseDone = {false};
+        Stream<Integer> stream = new BaseSpliterator<Integer>()
+                .setBatchSupplier(() -> i[0] == 3 ? null : new Integer[]{i[0] * 2, i[0]++ * 2 + 1})
+                .setOnClose(() -> onCloseDone[0] = true)
+                .stream();
+
+        assertEquals("[0, 1, 2, 3, 4, 5]", stream.collect(Collectors.toList()).toString());
+        assertTrue(onCloseDone[0]);
+    }
+
+    @Test
+    public void testTryAdvance() {
+        char[] chars = {'a', 'b'};
+        int[] i = new int[1];
+        BaseSpliterator<Character> spliterator = new BaseSpliterator<Character>()
+                .setNextSupplier(() -> chars[i[0]++])
+                .setIsLastSupplier(() -> i[0] == chars.length);
+        StringBuilder sb = new StringBuilder();
+
+        assertTrue(spliterator.tryAdvance(sb::append));
+        assertTrue(spliterator.tryAdvance(sb::append));
+        assertFalse(spliterator.tryAdvance(sb::append));
+        assertFalse(spliterator.tryAdvance(sb::append));
+        assertEquals("ab", sb.toString());
+    }
+
+    @Test
+    public void testParallelStream() {
+        AtomicInteger supplied = new AtomicInteger();
+        int[] i = new int[1];
+        boolean[] onCloseDone = {false};
+        BaseSpliterator<Integer> spliterator = new BaseSpliterator<Integer>()
+                .setNextSupplier(() -> {
+                    supplied.incrementAndGet();
+                    return i[0]++;
+                })
+                .setIsLastSupplier(() -> i[0] == 10000)
+                .setOnClose(() -> onCloseDone[0] = true)
+                .setSplitBatchSize(100);
+
+        Spliterator<Integer> split = spliterator.trySplit();
+        assertEquals(100, split.estimateSize());
+        assertTrue(split.tryAdvance(element -> assertEquals(Integer.valueOf(0), element)));
+
+        long sum = spliterator.parallelStream().mapToLong(Integer::longValue).sum();
+        assertEquals(10000L * 9999 / 2 - 4950, sum);
+        assertEquals(10000, supplied.get());
+        assertTrue(onCloseDone[0]);
+    }
 }
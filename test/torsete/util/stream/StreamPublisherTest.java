@@ -0,0 +1,182 @@
+package torsete.util.stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verifies the demand, completion, cancellation and errors of a {@link StreamPublisher}
+ */
+public class StreamPublisherTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDemand() throws InterruptedException {
+        AtomicInteger read = new AtomicInteger();
+        boolean[] closed = {false};
+        StreamPublisher<Integer> publisher = new StreamPublisher<>(() -> Stream.iterate(0, i -> i + 1)
+                .limit(1000)
+                .peek(i -> read.incrementAndGet())
+                .onClose(() -> closed[0] = true), executor)
+                .setBatchSize(7);
+        TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(10);
+        waitFor(() -> subscriber.items.size() == 10);
+        Thread.sleep(50);
+        assertEquals(10, subscriber.items.size());
+        assertTrue(read.get() <= 11);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals(1000, subscriber.items.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), subscriber.items.get(i));
+        }
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        CountDownLatch closed = new CountDownLatch(1);
+        StreamPublisher<Integer> publisher = new StreamPublisher<>(() -> Stream.iterate(0, i -> i + 1)
+                .onClose(closed::countDown), executor);
+        TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(3);
+        waitFor(() -> subscriber.items.size() == 3);
+        subscriber.subscription.cancel();
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testError() throws InterruptedException {
+        StreamPublisher<Integer> publisher = new StreamPublisher<>(() -> Stream.of(1, 2, 0, 4).map(i -> 4 / i), executor);
+        TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(10);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals("[4, 2]", subscriber.items.toString());
+        assertEquals(ArithmeticException.class, subscriber.error.getClass());
+
+        TestSubscriber secondSubscriber = new TestSubscriber();
+        publisher.subscribe(secondSubscriber);
+        assertEquals(IllegalStateException.class, secondSubscriber.error.getClass());
+    }
+
+    @Test
+    public void testInvalidRequest() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber();
+        new StreamPublisher<>(() -> Stream.of(1), executor).subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals(IllegalArgumentException.class, subscriber.error.getClass());
+    }
+
+    @Test
+    public void testSubscriberException() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber() {
+            @Override
+            public void onComplete() {
+                super.onComplete();
+                throw new IllegalStateException("onComplete");
+            }
+        };
+        new StreamPublisher<>(() -> Stream.of(1, 2), executor).subscribe(subscriber);
+
+        subscriber.subscription.request(10);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+
+        CountDownLatch closed = new CountDownLatch(1);
+        TestSubscriber failingSubscriber = new TestSubscriber() {
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                if (item == 2) {
+                    throw new IllegalStateException("onNext");
+                }
+            }
+        };
+        new StreamPublisher<>(() -> Stream.iterate(0, i -> i + 1).onClose(closed::countDown), executor)
+                .subscribe(failingSubscriber);
+
+        failingSubscriber.subscription.request(10);
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+        failingSubscriber.subscription.request(10);
+        Thread.sleep(50);
+        assertEquals("[0, 1, 2]", failingSubscriber.items.toString());
+        assertFalse(failingSubscriber.completed);
+        assertNull(failingSubscriber.error);
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < end);
+            Thread.sleep(1);
+        }
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<Integer> {
+        private Flow.Subscription subscription;
+        private List<Integer> items = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+        private volatile Throwable error;
+        private CountDownLatch done = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+}
@@ -4,7 +4,17 @@ import org.junit.Test;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -34,6 +44,22 @@ public class ItemLinesParserTest {
 
     }
 
+    @Test
+    public void nextView() {
+        ItemLinesParser itemLinesParser = new ItemLinesParser(new StringReader("x a=b\ny c=d\n e=\"f\"\n"));
+        itemLinesParser.open();
+        ItemView itemView = itemLinesParser.nextView();
+        assertEquals("0/0 x [a=b]", itemView.toItem().toString());
+        itemView = itemLinesParser.nextView();
+        assertEquals(1, itemView.getCount());
+        assertEquals(2, itemView.getLineCount());
+        assertEquals("y c=d e=\"f\"", itemView.getSource());
+        assertEquals("f", itemView.getValue("e"));
+        assertTrue(itemView.isLiteral("e"));
+        assertEquals("1/2 y [c=d, e=f]", itemView.toItem().toString());
+        assertFalse(itemLinesParser.hasNext());
+    }
+
     @Test
     public void stream_demo_valid() {
         String source = "x a=b\n" +
@@ -155,4 +181,130 @@ public class ItemLinesParserTest {
         assertFalse(itemLinesParser.isLiteral("a"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void parallelStream() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("item").append(i % 7).append(" id=n").append(i).append("\n");
+            for (int j = 0; j < i % 4; j++) {
+                sb.append(j == 1 ? "\n tekst" : "  tekst").append(j).append("=\"Dette er \"\"en\"\" tekst\"\n");
+            }
+        }
+        String source = sb.toString();
+        List<String> expected = new ItemLinesParser(new StringReader(source)).stream()
+                .map(i -> i.getCount() + " " + i.getLineCount() + " " + i.getSource() + " " + i)
+                .collect(Collectors.toList());
+        List<String> actual = new ItemLinesParser(new StringReader(source)).parallelStream()
+                .map(i -> i.getCount() + " " + i.getLineCount() + " " + i.getSource() + " " + i)
+                .collect(Collectors.toList());
+        assertEquals(10000, actual.size());
+        assertEquals(expected, actual);
+
+        assertEquals(0, new ItemLinesParser(new StringReader("")).parallelStream().count());
+    }
+
+    @Test
+    public void parallelStream_invalid() {
+        String source = "x a=b\n" +
+                "x c=d\n" +
+                " e=f\n" +
+                "\n" +
+                "   ?=y\n" +
+                "xxxxx g=h\n";
+        String expected = null;
+        try {
+            new ItemLinesParser(new StringReader(source)).stream().count();
+            fail("Forventer en IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            expected = e.getMessage();
+        }
+        try {
+            new ItemLinesParser(new StringReader(source)).parallelStream().forEach(i -> {
+            });
+            fail("Forventer en IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(expected, e.getMessage());
+            assertTrue(e.getMessage().startsWith("Fejl i linie 1-4"));
+        }
+    }
+
+    @Test
+    public void parallelStream_invalidSplit() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("x a=b").append(i).append("\n");
+            if (i == 1500) {
+                sb.append("   ?=y\n");
+            }
+        }
+        String source = sb.toString();
+        String expected = null;
+        try {
+            new ItemLinesParser(new StringReader(source)).stream().count();
+            fail("Forventer en IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            expected = e.getMessage();
+        }
+        assertTrue(expected.startsWith("Fejl i linie 1500-1501"));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 50; i++) {
+                try {
+                    pool.submit(() -> new ItemLinesParser(new StringReader(source)).parallelStream().forEach(item -> {
+                    })).get();
+                    fail("Forventer en IllegalArgumentException");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalArgumentException);
+                    assertEquals(expected, e.getCause().getMessage());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void publisher() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals("[0/0 x [a=b], 1/2 x [c=d, e=f]]", publish("x a=b\nx c=d\n e=f\n", executor).get(10, TimeUnit.SECONDS));
+            assertTrue(publish("x a=b\n   ?=y\n", executor).get(10, TimeUnit.SECONDS).startsWith("Fejl i linie"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return The items one by one, or the message of an error
+     */
+    private CompletableFuture<String> publish(String source, ExecutorService executor) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        new ItemLinesParser(new StringReader(source)).publisher(executor).subscribe(new Flow.Subscriber<Item>() {
+            private Flow.Subscription subscription;
+            private List<String> items = new ArrayList<>();
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Item item) {
+                items.add(item.toString());
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.complete(throwable instanceof IllegalArgumentException ? throwable.getMessage() : throwable.toString());
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(items.toString());
+            }
+        });
+        return result;
+    }
+}
@@ -255,6 +255,79 @@ public class ItemParserTest {
         assertEquals("xxx", itemParser.getLineType());
     }
 
+    @Test
+    public void testDanishLetters() {
+        itemParser.setLine("æøå=ÆØÅ").enableCaseSensitiveName(true).parse();
+        assertEquals("ÆØÅ", itemParser.getValue("æøå"));
+
+        itemParser.setLine("ÆØÅ=b").enableCaseSensitiveName(false).parse();
+        assertEquals("b", itemParser.getValue("æøå"));
+    }
+
+    @Test
+    public void testLegalNameChars() {
+        itemParser.setLegalNameChars("abcNΩ-");
+        itemParser.setLine("aN=Ω-c b=\"x y\"").parse();
+        assertEquals(2, itemParser.getVariables().size());
+        assertEquals("Ω-c", itemParser.getValue("an"));
+        assertEquals("x y", itemParser.getValue("b"));
+        try {
+            itemParser.setLine("x=a").parse();
+            fail("Forventer en IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.toString());
+        }
+
+        itemParser.setLegalNameChars(ItemParser.LEGALNAMECHARS);
+        itemParser.setLine("x=a").parse();
+        assertEquals("a", itemParser.getValue("x"));
+    }
+
+    @Test
+    public void testItemView() {
+        ItemView itemView = itemParser.setLine(new StringBuilder("x\ta=b\tTekst=\"Dette\ter \"\"en\"\" tekst\""))
+                .enableLineType(true)
+                .getItemView();
+        assertEquals("x", itemView.getItemTypeName());
+        assertEquals(2, itemView.getVariableCount());
+        assertEquals("a", itemView.getName(0));
+        assertEquals("b", itemView.getValue(0));
+        assertFalse(itemView.isLiteral(0));
+        assertEquals("tekst", itemView.getName(1));
+        assertEquals("Dette er \"en\" tekst", itemView.getValue(1));
+        assertTrue(itemView.isLiteral(1));
+        assertEquals("Dette er \"en\" tekst", itemView.getValue("TEKST"));
+        assertTrue(itemView.isLiteral("Tekst"));
+        assertNull(itemView.getValue("c"));
+        assertFalse(itemView.isLiteral("c"));
+
+        assertSame(itemView, itemParser.setLine("y c=d").getItemView());
+        assertEquals("y", itemView.getItemTypeName());
+        assertEquals(1, itemView.getVariableCount());
+        assertEquals("d", itemView.getValue("c"));
+        assertNull(itemView.getValue("a"));
+    }
+
+    @Test
+    public void testManyVariables() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(" Felt").append(i).append('=').append(i);
+        }
+        itemParser.setLine(sb);
+        assertEquals(1000, itemParser.getVariables().size());
+        assertEquals("0", itemParser.getValue("felt0"));
+        assertEquals("999", itemParser.getValue("FELT999"));
+        assertNull(itemParser.getValue("felt1000"));
+
+        try {
+            itemParser.setLine(sb + " felt500=x").parse();
+            fail("Forventer en IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Dubleret navn"));
+        }
+    }
+
     private void tryThis(String line) {
         System.out.println("****************");
         System.out.println(line);